@@ -1,93 +1,61 @@
-import java.util.ArrayList;
-
 /**
  * Class with a main method that is used to compare the performance of the different agent types. The wolrd is set up
- * in the same way as in A2main.java with some small differences to allow a comparison to be made.
+ * in the same way as in A2main.java with some small differences to allow a comparison to be made. The games are
+ * played by a Tournament, side by side on all the cores of the machine.
  */
 public class A2Test {
 
-    private static Agent agent;
-    private static Game game;
-
-
-    /**
-     * Method which sets up the Game and Agent instance required for the game to be played
-     * @param agentType i.e. RPX, SPX or SAT
-     * @param worldName e.g. S2, M7, L3
-     * @return returns a String with either 'game won' or 'game lost' indicating whether the agent has won or lost
-     * the game.
-     */
-    public static String setupWorld(String agentType, String worldName) {
-        game = new Game(worldName);
-        agent = new Agent(agentType, game);
-        String gameResult = agent.playGame();
-        return gameResult;
-    }
-
-
     /**
      * Main method of the class
-     * @param args can pass the number of times the 30 worlds are played by each agent. Default is 5
+     * @param args can pass the number of times the 30 worlds are played by each agent. Default is 5. It can be
+     * followed by --threads=N, the number of games played at the same time, --metrics=FILE, the CSV or JSON file the
+     * metrics of the agents are exported to, and by agent options e.g. --encoding=PB
      */
     public static void main(String[] args) {
-        int rpxWon = 0;
-        int spxWon = 0;
-        int satWon = 0;
         int nIterations = 5;
-        if (args.length == 1) {
+        int nThreads = Runtime.getRuntime().availableProcessors();
+        String metricsFile = null;
+        AgentOptions options = new AgentOptions();
+        if (args.length >= 1) {
             try {
                 nIterations = Integer.parseInt(args[0]);
             }
             catch (NumberFormatException e) {
                 System.out.println("Exception: " + e.getMessage());
             }
-        }
-        // Adding the agent types in a list to be iterated later on
-        ArrayList<String> agentTypes = new ArrayList<>();
-        agentTypes.add("RPX");
-        agentTypes.add("SPX");
-        agentTypes.add("SATX");
-
-        //Adding the world names  in a list to be iterated later on
-        ArrayList<String> worlds = new ArrayList<>();
-        worlds.add("S");
-        worlds.add("M");
-        worlds.add("L");
-
-        for (int j = 0; j < nIterations; j++) {
-            for (int i = 1; i <= 10; i++) {
-                for (String agentType : agentTypes) {
-                    for (String world : worlds) {
-                        // append the version of the world i.e. S1, S2, S3 etc....
-                        world = world + Integer.toString(i);
-                        System.out.println("World: " + world + " Agent: " + agentType);
-                        String result = setupWorld(agentType, world);
-                        switch (result) {
-                            // if game is won, repending on the agent type, increment variable
-                            case "game won":
-                                if (agentType == "RPX") {
-                                    rpxWon++;
-                                } else if (agentType == "SPX") {
-                                    spxWon++;
-                                } else if (agentType == "SATX") {
-                                    satWon++;
-                                }
-                                break;
-                            default:
-                                break;
-                        }
+            try {
+                // the number of threads and the metrics file are not agent options, so they are taken out before the
+                // options are parsed
+                int nOptions = 0;
+                String[] optionArgs = new String[args.length];
+                for (int i = 1; i < args.length; i++) {
+                    if (args[i].startsWith("--threads=")) {
+                        nThreads = Integer.parseInt(args[i].substring("--threads=".length()));
+                    } else if (args[i].startsWith("--metrics=")) {
+                        metricsFile = args[i].substring("--metrics=".length());
+                    } else {
+                        optionArgs[nOptions] = args[i];
+                        nOptions++;
                     }
                 }
+                String[] agentArgs = new String[nOptions];
+                System.arraycopy(optionArgs, 0, agentArgs, 0, nOptions);
+                options = AgentOptions.parse(agentArgs, 0);
+            }
+            catch (IllegalArgumentException e) {
+                System.out.println("Exception: " + e.getMessage());
+                return;
             }
         }
 
+        // the agents only spend time on their metrics when they are exported
+        options.setMetrics(metricsFile != null);
+        Tournament tournament = new Tournament(nIterations, options);
+        tournament.run(nThreads);
         // print out the results
-        System.out.println();
-        System.out.println("------------------------------------------");
-        System.out.println("\tResults for " + nIterations + " attempt(s) at each level:");
-        System.out.println("\tRPX won: " + rpxWon + "/" + (30*nIterations) + " - " + Math.round(((Integer.valueOf(rpxWon).floatValue()/(30*nIterations)) * 100)) + "% win rate");
-        System.out.println("\tSPX won: " + spxWon + "/" + (30*nIterations) + " - " + Math.round(((Integer.valueOf(spxWon).floatValue()/(30*nIterations)) * 100))+ "% win rate");
-        System.out.println("\tSATX won: " + satWon + "/" + (30*nIterations) + " - " + Math.round(((Integer.valueOf(satWon).floatValue()/(30*nIterations)) * 100)) + "% win rate");
-        System.out.println("------------------------------------------ ");
+        tournament.printSummary();
+        if (metricsFile != null) {
+            Metrics.export(tournament.getMetrics(), metricsFile);
+        }
     }
 }
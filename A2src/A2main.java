@@ -1,10 +1,14 @@
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.util.Random;
+
 /**
  * Main class of the program. It does some simple parameter checking and it then creates the game instance,
  * the right agent instance and calls the agent's playGame method
  */
 public class A2main {
 
-    // instance of Agent i.e. either RPX, SPX, SATX
+    // instance of Agent i.e. either RPX, SPX, SATX, CSPX, HYBX
     private static Agent agent;
     // instance of Game, holding the actual world view as well as the state of the game e.g game is over, game is won
     private static Game game;
@@ -12,16 +16,33 @@ public class A2main {
 
     /**
      * Method which sets up the Game and Agent instance required for the game to be played
-     * @param agentType i.e. RPX, SPX or SAT
-     * @param worldName e.g. S2, M7, L3
+     * @param agentType i.e. RPX, SPX, SAT, CSPX or HYBX
+     * @param worldName e.g. S2, M7, L3, or a generated world e.g. G100-0.2-42
+     * @param options options tuning how the agent plays
      */
-    public static void setupWorld(String agentType, String worldName) {
+    public static void setupWorld(String agentType, String worldName, AgentOptions options) {
         game = new Game(worldName);
-        // print the board i.e. actual world view
-        System.out.println("Game board view");
-        game.getBoard().printBoard();
+        // every game has a seed, so that it can be played again with --seed
+        if (!options.isSeeded()) {
+            options.setSeed(new Random().nextLong());
+        }
+        // print the board i.e. actual world view, along with the readable output of the agent
+        if (options.getOutput().equals("TEXT")) {
+            System.out.println("Game board view, seed " + options.getSeed());
+            game.getBoard().printBoard();
+        }
+        GameListener listener = options.createListener();
+        // record the moves of the game if asked to
+        if (options.getRecord() != null) {
+            try {
+                listener = new GameRecorder(new FileOutputStream(options.getRecord()), worldName, agentType,
+                        options.getSeed(), listener);
+            } catch (FileNotFoundException e) {
+                System.out.println("Exception: " + e.getMessage());
+            }
+        }
         // instantiate the agent
-        agent = new Agent(agentType, game);
+        agent = new Agent(agentType, game, options, listener);
         // play the game
         agent.playGame();
     }
@@ -29,18 +50,24 @@ public class A2main {
 
     public static void main(String[] args) {
 
-        // if args is equal to 2
-        if (args.length == 2) {
+        // if args has at least the agent and the world
+        if (args.length >= 2) {
             // parse the arguments
             String agent = args[0];
             String world = args[1];
-            // set up the wolrd to start the game
-            setupWorld(agent, world);
+            try {
+                AgentOptions options = AgentOptions.parse(args, 2);
+                // set up the wolrd to start the game
+                setupWorld(agent, world, options);
+            }
+            catch (IllegalArgumentException e) {
+                System.out.println("Invalid arguments. " + e.getMessage());
+            }
 
         }
         else {
             // usage message in case the number of arguments is wrong
-            System.out.println("Invalid arguments. Usage: java A2main <RPX|SPX|SATX> <ID>");
+            System.out.println("Invalid arguments. Usage: java A2main <RPX|SPX|SATX|CSPX|HYBX> <ID> [--encoding=DNF|PB|SEQ|TEMPLATE] [--cnf=FACTOR|TSEITIN|PG|BOUNDED] [--incremental=true] [--components=true] [--count=true] [--linear=true] [--guess=RANDOM|PROBABILITY] [--output=TEXT|TRACE|NONE] [--seed=N] [--record=FILE]");
         }
     }
 }
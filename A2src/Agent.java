@@ -1,41 +1,100 @@
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
 import org.logicng.formulas.FormulaFactory;
 import org.logicng.formulas.Formula;
 import org.logicng.io.parsers.ParserException;
 import org.logicng.io.parsers.PropositionalParser;
-import org.sat4j.core.VecInt;
-import org.sat4j.pb.SolverFactory;
 import org.sat4j.specs.ContradictionException;
-import org.sat4j.specs.ISolver;
 import org.sat4j.specs.TimeoutException;
 
 
 public class Agent {
 
-    // type of Agent i.e. RPX, SPX or SAT
+    // states of a cell in the agent's view
+    private static final byte UNKNOWN = 0;
+    private static final byte UNCOVERED = 1;
+    private static final byte MARKED = 2;
+    // tiers of the hybrid strategy, in the order in which they are tried
+    public static final String[] HYBRID_TIERS = {"cascade", "spx", "subset", "linear", "csp", "guess"};
+    // index of each tier in HYBRID_TIERS
+    private static final int CASCADE_TIER = 0;
+    private static final int SPX_TIER = 1;
+    private static final int SUBSET_TIER = 2;
+    private static final int LINEAR_TIER = 3;
+    private static final int CSP_TIER = 4;
+    private static final int GUESS_TIER = 5;
+    // the deductions whose proven cells are acted upon in one batch
+    private static final String[] BATCH_SOURCES = {"sat", "csp", "linear", "subset"};
+    // index of each deduction in BATCH_SOURCES
+    private static final int SAT_BATCH = 0;
+    private static final int CSP_BATCH = 1;
+    private static final int LINEAR_BATCH = 2;
+    private static final int SUBSET_BATCH = 3;
+    // names of the metrics of the tiers and of the batches, built once rather than on every move
+    private static final String[] TIER_TIME_NAMES = metricNames("tier.", HYBRID_TIERS, ".ns");
+    private static final String[] TIER_HIT_NAMES = metricNames("tier.", HYBRID_TIERS, ".hits");
+    private static final String[] BATCH_SAFE_NAMES = metricNames("", BATCH_SOURCES, ".backbone.safe");
+    private static final String[] BATCH_TORNADO_NAMES = metricNames("", BATCH_SOURCES, ".backbone.tornadoes");
+
+    // type of Agent i.e. RPX, SPX, SAT, CSPX or HYBX
     private String type;
+    // options tuning how the agent plays e.g. the encoding of the knowledge base
+    private AgentOptions options;
     // instance of Game class
     private Game game;
     // represents the agent's board view. This is distinct from the game's board view
     private Board board;
-    // list holding all the Cell objects of the board
-    private ArrayList<Cell> allCells;
-    // list holding all the unexamined cells of the board
-    private ArrayList<Cell> unexaminedCells;
-    // list holding all the examined cells of the board. A cell marked as a danger/tornado is also considered examined
-    private ArrayList<Cell> examinedCells;
+    // holds all the Cell objects of the board, indexed by y * boardLength + x
+    private Cell[] cells;
+    // holds the state of every cell i.e. UNKNOWN, UNCOVERED or MARKED, indexed by y * boardLength + x
+    private byte[] state;
+    // set holding the indices of all the unexamined cells of the board
+    private IndexSet unexaminedCells;
+    // number of unexamined neighbours of every cell, indexed by y * boardLength + x
+    private int[] unknownCount;
+    // number of neighbours marked as dangers of every cell, indexed by y * boardLength + x
+    private int[] dangerCount;
+    // set holding the uncovered cells whose neighbourhood has changed since the SPX rules were last applied to them
+    private IndexSet dirtyCells;
     // list holding all the uncovered cells of the board
     private ArrayList<Cell> uncoveredCells;
     // list holding all the cells marked as tornado cells
     private ArrayList<Cell> tornadoCells;
     // holds the length of the board
     private int boardLength;
-    // holds the number of Cells with a hint of 0 whose neighbours have not been probed yet.
-    private int cellsWithFreeNeighbours;
+    // holds the neighbours of every cell, shared by all the agents playing on a board of the same size
+    private HexAdjacency adjacency;
+    // queue holding the Cells with a hint of 0 whose neighbours have not been probed yet, from zeroQueueHead onwards
+    private int[] zeroQueue;
+    private int zeroQueueHead;
+    private int zeroQueueTail;
+    // holds which cells have been added to the zero queue, so that no cell is ever added twice
+    private BitSet queuedZeros;
     // used for parsing the string representation of the knowledge base into a logical formula
     private FormulaFactory f = new FormulaFactory();
     private PropositionalParser p = new PropositionalParser(f);
+    // source of the random moves of the agent
+    private Random random;
+    // latencies and sizes recorded while playing, e.g. the time taken by each phase of a SAT move
+    private Metrics metrics;
+    // statistics of the solver of the incremental session at the previous move, used to record their increase
+    private HashMap<String, Long> sessionStats;
+    // histograms of the statistics of the SAT4J solver, by name of the statistic
+    private HashMap<String, Metrics.Histogram> solverStats;
+    // histograms of the time taken by each tier of the hybrid strategy, and of whether it made progress
+    private Metrics.Histogram[] tierTimes;
+    private Metrics.Histogram[] tierHits;
+    // histograms of the number of cells each batch deduction proves safe, and proves to be tornadoes
+    private Metrics.Histogram[] batchSafe;
+    private Metrics.Histogram[] batchTornadoes;
+    // told about every event of the game e.g. probes, marks and board views
+    private GameListener listener;
+    // incremental SAT session kept across moves, only used by the SATX agent when the option is set
+    private SATSession session;
 
     /**
      * Class constructor
@@ -43,17 +102,68 @@ public class Agent {
      * @param game instance of Game class
      */
     public Agent(String type, Game game) {
+        this(type, game, new AgentOptions());
+    }
+
+    /**
+     * Class constructor
+     * @param type agent type
+     * @param game instance of Game class
+     * @param options options tuning how the agent plays
+     */
+    public Agent(String type, Game game, AgentOptions options) {
+        this(type, game, options, options.createListener());
+    }
+
+    /**
+     * Class constructor
+     * @param type agent type
+     * @param game instance of Game class
+     * @param options options tuning how the agent plays
+     * @param listener told about every event of the game
+     */
+    public Agent(String type, Game game, AgentOptions options, GameListener listener) {
         this.type = type;
+        this.options = options;
         this.game = game;
+        this.listener = listener;
+        this.metrics = new Metrics(options.isMetrics());
+        this.sessionStats = new HashMap<>();
+        this.solverStats = new HashMap<>();
+        this.tierTimes = histograms(TIER_TIME_NAMES);
+        this.tierHits = histograms(TIER_HIT_NAMES);
+        this.batchSafe = histograms(BATCH_SAFE_NAMES);
+        this.batchTornadoes = histograms(BATCH_TORNADO_NAMES);
+        this.random = options.isSeeded() ? new Random(options.getSeed()) : new Random();
         // the board length is the only piece of information the agent gets from the game instance
         this.boardLength = this.game.getBoard().board.length;
-        this.allCells = new ArrayList<>();
-        this.unexaminedCells = new ArrayList<>();
+        this.adjacency = HexAdjacency.forBoard(boardLength);
+        this.cells = new Cell[boardLength * boardLength];
+        this.state = new byte[boardLength * boardLength];
+        this.unexaminedCells = new IndexSet(boardLength * boardLength);
+        this.unknownCount = new int[boardLength * boardLength];
+        this.dangerCount = new int[boardLength * boardLength];
+        this.dirtyCells = new IndexSet(boardLength * boardLength);
         this.tornadoCells = new ArrayList<>();
         this.board = new Board(new char[boardLength][boardLength]);
-        this.examinedCells = new ArrayList<>();
         this.uncoveredCells = new ArrayList<>();
-        this.cellsWithFreeNeighbours = 0;
+        this.zeroQueue = new int[boardLength * boardLength];
+        this.zeroQueueHead = 0;
+        this.zeroQueueTail = 0;
+        this.queuedZeros = new BitSet(boardLength * boardLength);
+        // the session must exist before the hint cells are probed, so that it is told about them
+        if (type.equals("SATX") && options.isIncremental()
+                && !options.getEncoding().equals("DNF")) {
+            this.session = new SATSession(boardLength, options.getEncoding(), listener);
+            if (options.isCount()) {
+                int[] variables = new int[boardLength * boardLength];
+                for (int i = 0; i < variables.length; i++) {
+                    // the variable of a cell is its index plus one
+                    variables[i] = i + 1;
+                }
+                session.addTornadoCount(variables, game.getTornadoCount());
+            }
+        }
         // populate the board
         populateBoard();
         // populate the lists
@@ -105,19 +215,19 @@ public class Agent {
                 board.board[j][i] = '?';
             }
         }
-        System.out.println("Agent board view at t0");
-        board.printBoard();
     }
 
     /**
-     * Method which initialises the unexaminedCells and allCells lists
+     * Method which initialises the cells array and the unexaminedCells set
      */
     public void populateCells() {
         for (int i = 0; i < boardLength; i++) {
             for (int j = 0; j < boardLength; j++) {
                 Cell cell = new Cell(j, i, '?');
-                unexaminedCells.add(cell);
-                allCells.add(cell);
+                cells[i * boardLength + j] = cell;
+                unexaminedCells.add(i * boardLength + j);
+                // at t0 all the neighbours of a cell are unexamined
+                unknownCount[i * boardLength + j] = adjacency.degree(i * boardLength + j);
             }
         }
     }
@@ -126,75 +236,71 @@ public class Agent {
      * Method which probes the hint cells
      */
     public void probeHintCells() {
-        System.out.println("Probing hint cells");
-        System.out.println();
+        listener.onGameStart(board);
         Cell cell = findCell(0, 0);
         probeCell(cell);
         cell = findCell(boardLength / 2, boardLength / 2);
         probeCell(cell);
-        System.out.println("Agent board view at t1");
-        board.printBoard();
+        listener.onHintCellsProbed(board);
     }
 
     /**
-     * Method which returns the Cell object from the unexaminedCells list with coordinates passed as parameters
+     * Method which returns the unexamined Cell object with coordinates passed as parameters
      * @param x coordinate
      * @param y coordinate
      * @return Cell object at coordinates x and y
      */
     public Cell findUnexaminedCell(int x, int y) {
-        for (int i = 0; i < unexaminedCells.size(); i++) {
-            if (unexaminedCells.get(i).x == x && unexaminedCells.get(i).y == y) {
-                return unexaminedCells.get(i);
-            }
+        if (x < 0 || y < 0 || x >= boardLength || y >= boardLength || state[y * boardLength + x] != UNKNOWN) {
+            // if cell has been examined before
+            return null;
         }
-        // if cell has been examined before
-        return null;
+        return cells[y * boardLength + x];
     }
 
     /**
-     * Method which returns the Cell object from the allCells list with coordinates passed as parameters
+     * Method which returns the Cell object with coordinates passed as parameters
      * @param x coordinate
      * @param y coordinate
      * @return Cell object at coordinates x and y
      */
     public Cell findCell(int x, int y) {
-        for (int i = 0; i < allCells.size(); i++) {
-            if (allCells.get(i).x == x && allCells.get(i).y == y) {
-                return allCells.get(i);
-            }
+        if (x < 0 || y < 0 || x >= boardLength || y >= boardLength) {
+            // if cell does not exist
+            return null;
         }
-        // if cell does not exist
-        return null;
+        return cells[y * boardLength + x];
     }
 
     /**
      * Method which uncovers cell passed as a parameter. It gets the information about the Cell at that position from 
-     * the game instance. It updates the lists and prints out the appropriate message.
+     * the game instance. It updates the lists and tells the listener about the probe.
      * @param cell
      */
     public void probeCell(Cell cell) {
-        Cell myCell = findCell(cell.x, cell.y);
+        int index = cell.y * boardLength + cell.x;
         Cell perceivedCell = game.uncoverCell(cell.x, cell.y);
         cell.setHint(perceivedCell.getHint());
-        myCell.setHint(perceivedCell.getHint());
-        unexaminedCells.remove(cell);
-        examinedCells.add(cell);
+        updateCounters(index, UNCOVERED);
+        unexaminedCells.remove(index);
         uncoveredCells.add(cell);
         board.board[cell.y][cell.x] = cell.getHint();
+        listener.onProbe(cell);
         if (cell.getHint() == 't') {
-            System.out.println("tornado " + cell.toString());
-        } 
-        // if the hint is 0, increment free neighbours. Tells program that there are free neighbours to be probed
+            return;
+        }
+        // if the hint is 0, queue the cell. Tells program that there are free neighbours to be probed
         else if (cell.getHint() == '0') {
-            cellsWithFreeNeighbours++;
-            System.out.println("probe " + cell.toString());
-
-        } 
-        else {
-            System.out.println("probe " + cell.toString());
+            if (!queuedZeros.get(index)) {
+                queuedZeros.set(index);
+                zeroQueue[zeroQueueTail] = index;
+                zeroQueueTail++;
+            }
+        }
+        if (session != null) {
+            session.addUncoveredCell(cell, neighbourVariables(index), neighbouringUnknowns(cell) > 0);
+            retireKnownHints(cell);
         }
-        //System.out.println();
     }
 
     /**
@@ -202,155 +308,183 @@ public class Agent {
      * @param cell to be marked as a 'danger'.
      */
     public void markCell(Cell cell) {
-        Cell myCell = findCell(cell.x, cell.y);
+        int index = cell.y * boardLength + cell.x;
         cell.setHint('D');
-        myCell.setHint('D');
+        updateCounters(index, MARKED);
         tornadoCells.add(cell);
-        examinedCells.add(cell);
-        unexaminedCells.remove(cell);
+        unexaminedCells.remove(index);
         board.board[cell.y][cell.x] = cell.getHint();
-        System.out.println("mark " + cell.toString());
-        System.out.println();
+        listener.onMark(cell);
+        if (session != null) {
+            session.addMarkedCell(cell);
+            retireKnownHints(cell);
+        }
     }
 
     /**
-     * Method which returns whether a Cell object has been examined before
-     * @param adjacentCell
-     * @return
+     * Method which sets the state of a cell that has just been examined, updating the counters of its neighbours. Only
+     * the six neighbours of the cell are affected, so the counters never have to be recomputed. The cell, if
+     * uncovered, and its uncovered neighbours are marked as dirty for the SPX rules.
+     * @param index of the cell
+     * @param newState UNCOVERED or MARKED
      */
-    public boolean hasBeenExamined(Cell adjacentCell) {
-        for (Cell cell : examinedCells) {
-            if (cell.x == adjacentCell.x && cell.y == adjacentCell.y) {
-                return true;
+    private void updateCounters(int index, byte newState) {
+        if (state[index] == UNKNOWN) {
+            for (int k = adjacency.start(index); k < adjacency.end(index); k++) {
+                int neighbour = adjacency.neighbour(k);
+                unknownCount[neighbour]--;
+                if (newState == MARKED) {
+                    dangerCount[neighbour]++;
+                }
+                if (state[neighbour] == UNCOVERED) {
+                    dirtyCells.add(neighbour);
+                }
             }
         }
-        return false;
+        state[index] = newState;
+        if (newState == UNCOVERED) {
+            dirtyCells.add(index);
+        }
     }
 
     /**
-     * Method which returns all the neighbouring cells of a cell passed as a parameter
-     * @param cell whose neighbours are to be found
-     * @return an ArrayList containing the neighbours of the parameter Cell object.
+     * Method which retires from the incremental SAT session the hints around the cell passed as a parameter whose
+     * neighbours are now all known.
+     * @param cell that has just been probed or marked
      */
-    public ArrayList<Cell> getAllNeighbours(Cell cell) {
-        ArrayList<Cell> adjacentCells = new ArrayList<>();
-        
-        
-        // cell over and to the left
-        if (cell.x > 0 && cell.y > 0) {
-            // check if already probed
-            Cell adjacentCell = findCell(cell.x - 1, cell.y - 1);
-            if (adjacentCell != null) {
-                adjacentCells.add(adjacentCell);
+    private void retireKnownHints(Cell cell) {
+        int index = cell.y * boardLength + cell.x;
+        for (int k = adjacency.start(index); k < adjacency.end(index); k++) {
+            Cell adjacentCell = cells[adjacency.neighbour(k)];
+            if (state[adjacency.neighbour(k)] == UNCOVERED && neighbouringUnknowns(adjacentCell) == 0) {
+                session.retireHint(adjacentCell);
             }
         }
-        // cell to the left
-        if (cell.x > 0) {
-            Cell adjacentCell = findCell(cell.x - 1, cell.y);
-            if (adjacentCell != null) {
-                adjacentCells.add(adjacentCell);
-            }
-        }
-        // cell over
-        if (cell.y > 0) {
-            Cell adjacentCell = findCell(cell.x, cell.y - 1);
-            if (adjacentCell != null) {
-                adjacentCells.add(adjacentCell);
+    }
+
+    /**
+     * Method which returns which neighbour slots of a cell are still unknown. The slots are the positions of the
+     * neighbours in the adjacency table, in the same order as neighbourVariables.
+     * @param index of the cell
+     * @return the mask of the unknown slots, one bit per slot
+     */
+    private int unknownMask(int index) {
+        int mask = 0;
+        for (int k = adjacency.start(index); k < adjacency.end(index); k++) {
+            if (state[adjacency.neighbour(k)] == UNKNOWN) {
+                mask |= 1 << (k - adjacency.start(index));
             }
         }
-        // cell under and to the right
-        if (cell.x < boardLength - 1 && cell.y < boardLength - 1) {
-            Cell adjacentCell = findCell(cell.x + 1, cell.y + 1);
-            if (adjacentCell != null) {
-                adjacentCells.add(adjacentCell);
-            }
+        return mask;
+    }
+
+    /**
+     * Method which returns the variables of all the neighbours of a cell
+     * @param index of the cell
+     * @return the DIMACS variables of the neighbours of the cell
+     */
+    private int[] neighbourVariables(int index) {
+        int[] variables = new int[adjacency.degree(index)];
+        for (int k = adjacency.start(index); k < adjacency.end(index); k++) {
+            // the variable of a cell is its index plus one
+            variables[k - adjacency.start(index)] = adjacency.neighbour(k) + 1;
         }
-        // cell to the right
-        if (cell.x < boardLength - 1) {
-            Cell adjacentCell = findCell(cell.x + 1, cell.y);
-            if (adjacentCell != null) {
-                adjacentCells.add(adjacentCell);
-            }
+        return variables;
+    }
+
+    /**
+     * Simple getter
+     * @return the cells uncovered so far
+     */
+    public ArrayList<Cell> getUncoveredCells() {
+        return uncoveredCells;
+    }
+
+    /**
+     * Method which builds the names of a family of metrics
+     * @param prefix start of every name e.g. tier.
+     * @param names the part of each name which varies e.g. the names of the tiers
+     * @param suffix end of every name e.g. .ns
+     * @return the names of the metrics, in the order of names
+     */
+    private static String[] metricNames(String prefix, String[] names, String suffix) {
+        String[] metricNames = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            metricNames[i] = prefix + names[i] + suffix;
         }
-        // cell under
-        if (cell.y < boardLength - 1) {
-            Cell adjacentCell = findCell(cell.x, cell.y + 1);
-            if (adjacentCell != null) {
-                adjacentCells.add(adjacentCell);
-            }
+        return metricNames;
+    }
+
+    /**
+     * Method which resolves the histograms of a family of metrics once, so that recording them on every move neither
+     * builds nor looks up their names
+     * @param names the names of the metrics
+     * @return the histogram of each metric, in the order of names
+     */
+    private Metrics.Histogram[] histograms(String[] names) {
+        Metrics.Histogram[] histograms = new Metrics.Histogram[names.length];
+        for (int i = 0; i < names.length; i++) {
+            histograms[i] = metrics.histogram(names[i]);
         }
+        return histograms;
+    }
 
-        return adjacentCells;
+    /**
+     * Simple getter
+     * @return the metrics recorded while playing
+     */
+    public Metrics getMetrics() {
+        return metrics;
     }
 
     /**
-     * Method which uncovers all neighbours of a cell with hint 0 i.e. no tornadoes around it
+     * Method which returns whether a Cell object has been examined before
+     * @param adjacentCell
+     * @return
      */
-    @SuppressWarnings("Duplicates")
-    public void uncoverAllClearNeighbours() {
-        // list holding cells that are adjacent to a cell with hint 0. These cells can be probed
-        ArrayList<Cell> adjacentCells = new ArrayList<>();
-        for (Cell cell : examinedCells) {
-            if (cell.getHint() == '0') {
-                if (cell.x > 0 && cell.y > 0) {
-                    // check if already probed
-                    Cell adjacentCell = findUnexaminedCell(cell.x - 1, cell.y - 1);
-                    if (adjacentCell != null) {
-                        adjacentCells.add(adjacentCell);
-                    }
-                }
-                if (cell.x > 0) {
-                    Cell adjacentCell = findUnexaminedCell(cell.x - 1, cell.y);
-                    if (adjacentCell != null) {
-                        adjacentCells.add(adjacentCell);
-                    }
-                }
-                if (cell.y > 0) {
-                    Cell adjacentCell = findUnexaminedCell(cell.x, cell.y - 1);
-                    if (adjacentCell != null) {
-                        adjacentCells.add(adjacentCell);
-                    }
-                }
-                if (cell.x < boardLength - 1 && cell.y < boardLength - 1) {
-                    Cell adjacentCell = findUnexaminedCell(cell.x + 1, cell.y + 1);
-                    if (adjacentCell != null) {
-                        adjacentCells.add(adjacentCell);
-                    }
-                }
-                if (cell.x < boardLength - 1) {
-                    Cell adjacentCell = findUnexaminedCell(cell.x + 1, cell.y);
-                    if (adjacentCell != null) {
-                        adjacentCells.add(adjacentCell);
-                    }
-                }
-                if (cell.y < boardLength - 1) {
-                    Cell adjacentCell = findUnexaminedCell(cell.x, cell.y + 1);
-                    if (adjacentCell != null) {
-                        adjacentCells.add(adjacentCell);
-                    }
-                }
+    public boolean hasBeenExamined(Cell adjacentCell) {
+        return state[adjacentCell.y * boardLength + adjacentCell.x] != UNKNOWN;
+    }
 
-            }
-        }
-        // probe all the cells in the probe cell list. Done outside the loop to prevent ConcurrentModificationException
-        for (Cell adjacentCell : adjacentCells) {
-            if (!hasBeenExamined(adjacentCell)) {
-                System.out.println("Uncovering free neighbour");
-                probeCell(adjacentCell);
-            }
+    /**
+     * Method which returns all the neighbouring cells of a cell passed as a parameter
+     * @param cell whose neighbours are to be found
+     * @return an ArrayList containing the neighbours of the parameter Cell object.
+     */
+    public ArrayList<Cell> getAllNeighbours(Cell cell) {
+        int index = cell.y * boardLength + cell.x;
+        ArrayList<Cell> adjacentCells = new ArrayList<>(adjacency.degree(index));
+        for (int k = adjacency.start(index); k < adjacency.end(index); k++) {
+            adjacentCells.add(cells[adjacency.neighbour(k)]);
         }
+        return adjacentCells;
     }
 
     /**
-     * Method which calls the uncoverAllClearNeighbours method.
-     * Decrements the freeNeighbours variable.
+     * Method which uncovers all the neighbours of the cells with hint 0 i.e. no tornadoes around them. The cells with
+     * hint 0 are taken from a queue in the order in which they were revealed, and any neighbour revealed with hint 0
+     * is added to the back of the queue, so an empty region is opened in a single breadth-first flood fill.
      */
-    @SuppressWarnings("Duplicates")
     public void clearNeighbours() {
-        while (cellsWithFreeNeighbours != 0 && !game.isGameWon()) {
-            uncoverAllClearNeighbours();
-            cellsWithFreeNeighbours--;
+        if (zeroQueueHead == zeroQueueTail) {
+            return;
         }
+        long start = System.nanoTime();
+        int nProbes = 0;
+        while (zeroQueueHead < zeroQueueTail && !game.isGameWon()) {
+            int index = zeroQueue[zeroQueueHead];
+            zeroQueueHead++;
+            for (int k = adjacency.start(index); k < adjacency.end(index) && !game.isGameWon(); k++) {
+                int neighbour = adjacency.neighbour(k);
+                if (state[neighbour] == UNKNOWN) {
+                    listener.onCascade(cells[neighbour]);
+                    probeCell(cells[neighbour]);
+                    nProbes++;
+                }
+            }
+        }
+        metrics.recordTime("cascade.ns", start);
+        metrics.record("cascade.probes", nProbes);
     }
 
 
@@ -361,11 +495,65 @@ public class Agent {
      * Method which randomly picks an unprobed cell to probe next. Used by the RPX method
      */
     public void makeRandomMove() {
-        Random rand = new Random();
-        Cell cell = unexaminedCells.get(rand.nextInt(unexaminedCells.size()));
+        Cell cell = cells[unexaminedCells.get(random.nextInt(unexaminedCells.size()))];
         probeCell(cell);
     }
 
+    /** ---------------------------------------- PROBABILITY METHODS ---------------------------------------------**/
+
+
+    /**
+     * Method which works out the exact probability of each unexamined cell containing a tornado, given the hints
+     * uncovered so far and the total number of tornadoes of the world.
+     * @return the probability of each cell, indexed by y * boardLength + x. 0 for examined cells
+     */
+    public double[] getTornadoProbabilities() {
+        Frontier frontier = buildFrontier();
+        ProbabilityEngine engine = new ProbabilityEngine(frontier, unexaminedCells.size(),
+                game.getTornadoCount() - tornadoCells.size());
+        double[] frontierProbabilities = engine.computeProbabilities(boardLength * boardLength);
+        metrics.record("probability.approximate", engine.getApproximated());
+        double[] probabilities = new double[boardLength * boardLength];
+        for (int i = 0; i < unexaminedCells.size(); i++) {
+            Cell cell = cells[unexaminedCells.get(i)];
+            int var = KBBuilder.variable(cell.x, cell.y, boardLength);
+            if (frontier.getComponentOf(var) >= 0) {
+                probabilities[var - 1] = frontierProbabilities[var];
+            } else {
+                probabilities[var - 1] = engine.getOutsideProbability();
+            }
+        }
+        return probabilities;
+    }
+
+    /**
+     * Method which makes a move when no cell can be proven safe. Depending on the agent's options it either probes a
+     * random cell or the cell least likely to contain a tornado.
+     */
+    public void makeGuess() {
+        // the hybrid agent always guesses by probability, as its last tier
+        if (!options.getGuess().equals("PROBABILITY") && !type.equals("HYBX")) {
+            listener.onGuess(type, Double.NaN);
+            makeRandomMove();
+            return;
+        }
+        long start = System.nanoTime();
+        double[] probabilities = getTornadoProbabilities();
+        metrics.recordTime("guess.probability.ns", start);
+        Cell bestCell = null;
+        double bestProbability = 2;
+        for (int i = 0; i < unexaminedCells.size(); i++) {
+            Cell cell = cells[unexaminedCells.get(i)];
+            double probability = probabilities[KBBuilder.variable(cell.x, cell.y, boardLength) - 1];
+            if (probability < bestProbability) {
+                bestProbability = probability;
+                bestCell = cell;
+            }
+        }
+        listener.onGuess(type, bestProbability);
+        probeCell(bestCell);
+    }
+
     /** -------------------------------------------- SPX METHODS ------------------------------------------------**/
 
     /**
@@ -373,16 +561,8 @@ public class Agent {
      * @param cell
      * @return integer value of number of flagged cells around the cell passed as a parameter
      */
-    @SuppressWarnings("Duplicates")
     public int neighbouringDangers(Cell cell) {
-        int nDangers = 0;
-        ArrayList<Cell> adjacentCells = getAllNeighbours(cell);
-        for (Cell adjacentCell : adjacentCells) {
-            if (adjacentCell.getHint() == 'D') {
-                nDangers++;
-            }
-        }
-        return nDangers;
+        return dangerCount[cell.y * boardLength + cell.x];
     }
 
     /**
@@ -391,14 +571,7 @@ public class Agent {
      * @returni nteger value of number of unexamined cells around the cell passed as a parameter
      */
     public int neighbouringUnknowns(Cell cell) {
-        int nUnknowns = 0;
-        ArrayList<Cell> adjacentCells = getAllNeighbours(cell);
-        for (Cell adjacentCell : adjacentCells) {
-            if (adjacentCell.getHint() == '?') {
-                nUnknowns++;
-            }
-        }
-        return nUnknowns;
+        return unknownCount[cell.y * boardLength + cell.x];
     }
 
     /**
@@ -407,11 +580,12 @@ public class Agent {
      * @return true if the cell is in an AFN situation
      */
     public boolean checkAFN(Cell cell) {
-        ArrayList<Cell> adjacentCells = getAllNeighbours(cell);
-        for (Cell adjacentCell : adjacentCells) {
-            if (adjacentCell.getHint() != '?' && adjacentCell.getHint() != 'D') {
+        int index = cell.y * boardLength + cell.x;
+        for (int k = adjacency.start(index); k < adjacency.end(index); k++) {
+            int neighbour = adjacency.neighbour(k);
+            if (state[neighbour] == UNCOVERED) {
                 // AFN situation is true if the number of flagged cells around cell equals hint
-                if (neighbouringDangers(adjacentCell) == Character.getNumericValue(adjacentCell.getHint())) {
+                if (dangerCount[neighbour] == cells[neighbour].getHint() - '0') {
                     return true;
                 }
             }
@@ -425,11 +599,12 @@ public class Agent {
      * @return true if the cells is in an AMN situation
      */
     public boolean checkAMN(Cell cell) {
-        ArrayList<Cell> adjacentCells = getAllNeighbours(cell);
-        for (Cell adjacentCell : adjacentCells) {
-            if (adjacentCell.getHint() != '?' && adjacentCell.getHint() != 'D') {
+        int index = cell.y * boardLength + cell.x;
+        for (int k = adjacency.start(index); k < adjacency.end(index); k++) {
+            int neighbour = adjacency.neighbour(k);
+            if (state[neighbour] == UNCOVERED) {
                 // AMD situation is true if the number of unexamined cells around cell equals hint minus flagged cells
-                if (neighbouringUnknowns(adjacentCell) == (Character.getNumericValue(adjacentCell.getHint() - neighbouringDangers(adjacentCell)))) {
+                if (unknownCount[neighbour] == cells[neighbour].getHint() - '0' - dangerCount[neighbour]) {
                     return true;
                 }
             }
@@ -438,33 +613,51 @@ public class Agent {
     }
 
     /**
-     * Method which picks a cell based on the single point strategy
+     * Method which applies the single point strategy to every uncovered cell whose neighbourhood has changed. If the
+     * hint of such a cell is matched by its flagged neighbours (AFN) all its unknown neighbours are probed, and if it
+     * is matched by its flagged and unknown neighbours (AMN) all its unknown neighbours are marked. Every probe or mark
+     * makes the neighbouring hints dirty again, so the pass goes on until no rule applies anywhere on the board.
+     * @return the number of cells probed or marked
+     */
+    public int propagateSPX() {
+        long start = System.nanoTime();
+        int nActions = 0;
+        while (dirtyCells.size() > 0 && !game.isGameOver()) {
+            int index = dirtyCells.pop();
+            if (state[index] != UNCOVERED || unknownCount[index] == 0) {
+                continue;
+            }
+            int nTornadoes = cells[index].getHint() - '0';
+            boolean afn = dangerCount[index] == nTornadoes;
+            boolean amn = unknownCount[index] == nTornadoes - dangerCount[index];
+            if (!afn && !amn) {
+                continue;
+            }
+            for (int k = adjacency.start(index); k < adjacency.end(index) && !game.isGameOver(); k++) {
+                int neighbour = adjacency.neighbour(k);
+                if (state[neighbour] == UNKNOWN) {
+                    if (afn) {
+                        probeCell(cells[neighbour]);
+                    } else {
+                        markCell(cells[neighbour]);
+                    }
+                    nActions++;
+                }
+            }
+        }
+        metrics.recordTime("spx.propagate.ns", start);
+        metrics.record("spx.actions", nActions);
+        return nActions;
+    }
+
+    /**
+     * Method which picks cells based on the single point strategy. All the probes and marks that can be deduced are
+     * made in one pass, and a guess is made only if none can.
      */
     public void makeSPXMove() {
-        Cell myCell = null;
-        String action = "R";
-        // iterate all unprobed cell to find situations of AFN or AMN
-        for (Cell cell : unexaminedCells) {
-            if (checkAFN(cell)) {
-                action = "P";
-                myCell = cell;
-                break;
-            } else if (checkAMN(cell)) {
-                action = "M";
-                myCell = cell;
-                break;
-            }
-        }
-        // if no unexamined cell is in an AMN or AFN situation, make random move.
-        if (action == "R") {
-            System.out.println("No SPX, going random.");
-            makeRandomMove();
-        } else if (action == "P") {
-            //System.out.println("AFN found, probing");
-            probeCell(myCell);
-        } else {
-            //System.out.println("AMN found, marking");
-            markCell(myCell);
+        // if no uncovered cell is in an AMN or AFN situation, make random move.
+        if (propagateSPX() == 0) {
+            makeGuess();
         }
     }
 
@@ -479,8 +672,7 @@ public class Agent {
      */
     public String createClause(Cell cell) {
 
-        // get all the neighbours of the cell
-        ArrayList<Cell> neighbours = getAllNeighbours(cell);
+        int index = cell.y * boardLength + cell.x;
         // contains unknown neighbours of parameter cell
         ArrayList<Cell> unknownCells = new ArrayList<>();
         // contains marked neighbours of parameter cell
@@ -488,7 +680,8 @@ public class Agent {
         ArrayList<String> markedLiterals = new ArrayList<>();
 
         // populate the markedNeighbours and unknownCells lists
-        for (Cell myCell : neighbours) {
+        for (int k = adjacency.start(index); k < adjacency.end(index); k++) {
+            Cell myCell = cells[adjacency.neighbour(k)];
             if (myCell.getHint() == 'D') {
                 markedNeighbours.add(myCell);
             } else if (myCell.getHint() == '?') {
@@ -499,10 +692,10 @@ public class Agent {
         // create the literals of each cell
         ArrayList<String> literals = new ArrayList<>();
         for (Cell unknownCell : unknownCells) {
-            literals.add("T" + unknownCell.x + unknownCell.y);
+            literals.add("T" + unknownCell.x + "_" + unknownCell.y);
         }
         for (Cell markedCell: markedNeighbours) {
-            markedLiterals.add("T" + markedCell.x + markedCell.y);
+            markedLiterals.add("T" + markedCell.x + "_" + markedCell.y);
         }
 
         // number of neighbouring tornado cells
@@ -516,9 +709,9 @@ public class Agent {
         ArrayList<ArrayList<String>> permutedClauses = listPermutations(literals);
         for (int i = 0; i < permutedClauses.size(); i++) {
             ArrayList<String> currentClause = permutedClauses.get(i);
-            // nUnknowns - nTornados - nMarked is the number of free/safe cells around cell
+            // nUnknowns - (nTornados - nMarked) is the number of free/safe cells around cell
             // used to get all possible scenarios
-            for (int j = 0; j < nUnknowns - nTornadoes - nMarked; j++) {
+            for (int j = 0; j < nUnknowns - (nTornadoes - nMarked); j++) {
                 String clause = currentClause.get(j);
                 currentClause.remove(clause);
                 clause = "~" + clause;
@@ -579,62 +772,507 @@ public class Agent {
 
 
     /**
-     * Method which carries out the SAT move strategy. It calls the methods required to turn the knowledge base into
-     * a logical formula string, then calls the methods that encode this into CNF DIMACS and then uses the SAT4J solver
-     * to assess whether a Cell is safe to be probed.
+     * Method which takes an uncovered Cell object as a parameter and returns the variables of its unknown neighbours,
+     * over which its hint is encoded as an "exactly k of the unknown neighbours are tornadoes" constraint, where k is
+     * the hint minus the neighbours already marked.
+     * @param cell uncovered cell whose hint is to be encoded
+     * @return the variables of the unknown neighbours of the cell
+     */
+    public int[] createCardinalityLiterals(Cell cell) {
+        int[] literals = new int[neighbouringUnknowns(cell)];
+        int index = cell.y * boardLength + cell.x;
+        int nLiterals = 0;
+        for (int k = adjacency.start(index); k < adjacency.end(index); k++) {
+            if (state[adjacency.neighbour(k)] == UNKNOWN) {
+                // the variable of a cell is its index plus one
+                literals[nLiterals] = adjacency.neighbour(k) + 1;
+                nLiterals++;
+            }
+        }
+        return literals;
+    }
+
+    /**
+     * Method which loads the knowledge base into a solver using the DNF encoding. The KB is turned into a logical
+     * formula string, parsed, converted to CNF with the strategy set in the options and then encoded in DIMACS.
+     * @return the knowledge base loaded into the solver
+     */
+    private KBBuilder loadDNFKB() throws ParserException, ContradictionException {
+        // Create the KB from the probed Cells
+        long start = System.nanoTime();
+        String kbString = convertKB(uncoveredCells);
+        metrics.recordTime("sat.kb.convert.ns", start);
+        metrics.record("sat.kb.length", kbString.length());
+        DIMACSGenerator dimacsGenerator = new DIMACSGenerator(boardLength, options.getCnf());
+        // parse the String representing the knowledge base into a logical formula
+        start = System.nanoTime();
+        Formula formula = p.parse(kbString);
+        metrics.recordTime("sat.kb.parse.ns", start);
+        // convert the formula to CNF, with the strategy set in the options, and then to a DIMACS encoding
+        start = System.nanoTime();
+        Formula cnf = dimacsGenerator.toCNF(formula);
+        metrics.recordTime("sat.kb.cnf.ns", start);
+        start = System.nanoTime();
+        int[][] dimacsClauses = dimacsGenerator.convertToDIMACS(cnf);
+        metrics.recordTime("sat.kb.dimacs.ns", start);
+        start = System.nanoTime();
+        KBBuilder kb = new KBBuilder(boardLength, options.getEncoding());
+        for (int j = 0; j < dimacsClauses.length; j++) {
+            // add clause to solved
+            kb.addClause(dimacsClauses[j]);
+        }
+        if (options.isCount()) {
+            addTornadoCount(kb);
+        }
+        metrics.recordTime("sat.kb.load.ns", start);
+        return kb;
+    }
+
+    /**
+     * Method which loads the knowledge base into a solver using one cardinality constraint per hint. With the PB
+     * encoding the constraints are given natively to the pseudo-boolean solver, with the SEQ encoding they are
+     * turned into CNF through a sequential counter, and with the TEMPLATE encoding they are copied from the clause
+     * template of the hint.
+     * @return the knowledge base loaded into the solver
+     */
+    private KBBuilder loadCardinalityKB() throws ContradictionException {
+        long start = System.nanoTime();
+        KBBuilder kb = new KBBuilder(boardLength, options.getEncoding());
+        boolean templates = options.getEncoding().equals("TEMPLATE");
+        for (Cell cell : uncoveredCells) {
+            if (templates && neighbouringUnknowns(cell) > 0) {
+                int index = cell.y * boardLength + cell.x;
+                kb.addHint(Character.getNumericValue(cell.getHint()), neighbouringDangers(cell), unknownMask(index),
+                        neighbourVariables(index));
+            } else if (neighbouringUnknowns(cell) > 0) {
+                kb.addExactly(createCardinalityLiterals(cell),
+                        Character.getNumericValue(cell.getHint()) - neighbouringDangers(cell));
+            }
+        }
+        if (options.isCount()) {
+            addTornadoCount(kb);
+        }
+        metrics.recordTime("sat.kb.load.ns", start);
+        return kb;
+    }
+
+    /**
+     * Method which adds to the knowledge base that the unexamined cells hold exactly the tornadoes of the world which
+     * have not been marked yet. With the PB encoding this is a single native constraint, otherwise it is encoded with
+     * a sequential counter, so its size grows with the number of unexamined cells times the number of tornadoes left.
+     * @param kb the knowledge base
+     */
+    private void addTornadoCount(KBBuilder kb) throws ContradictionException {
+        int[] variables = new int[unexaminedCells.size()];
+        for (int i = 0; i < unexaminedCells.size(); i++) {
+            // the variable of a cell is its index plus one
+            variables[i] = unexaminedCells.get(i) + 1;
+        }
+        kb.addExactly(variables, game.getTornadoCount() - tornadoCells.size());
+    }
+
+    /**
+     * Method which builds the frontier of the board from the uncovered cells, with one constraint per hint that still
+     * has unknown neighbours.
+     * @return the frontier of the board
+     */
+    public Frontier buildFrontier() {
+        Frontier frontier = new Frontier(boardLength * boardLength);
+        for (Cell cell : uncoveredCells) {
+            if (neighbouringUnknowns(cell) > 0) {
+                frontier.addConstraint(createCardinalityLiterals(cell),
+                        Character.getNumericValue(cell.getHint()) - neighbouringDangers(cell));
+            }
+        }
+        return frontier;
+    }
+
+    /**
+     * Method which splits the frontier into its connected components and works out the backbone of each of them with
+     * its own small solver on the fork-join pool.
+     * @return for each variable of the board, 1 if the cell is proven to be a tornado, -1 if it is proven safe, 0
+     * otherwise
+     */
+    private int[] findBackboneByComponents() {
+        Frontier frontier = buildFrontier();
+        ArrayList<Frontier.Component> components = frontier.getComponents();
+        // the candidates of each component, in the order of the unexamined cells
+        int[][] candidates = new int[components.size()][];
+        int[] nCandidates = new int[components.size()];
+        for (int i = 0; i < components.size(); i++) {
+            candidates[i] = new int[components.get(i).variables.length];
+        }
+        for (int i = 0; i < unexaminedCells.size(); i++) {
+            Cell cell = cells[unexaminedCells.get(i)];
+            int var = KBBuilder.variable(cell.x, cell.y, boardLength);
+            int component = frontier.getComponentOf(var);
+            if (component >= 0) {
+                candidates[component][nCandidates[component]] = frontier.getLocalVariable(var);
+                nCandidates[component]++;
+            }
+        }
+        ArrayList<ComponentSolver> tasks = new ArrayList<>();
+        for (int i = 0; i < components.size(); i++) {
+            int[] componentCandidates = new int[nCandidates[i]];
+            System.arraycopy(candidates[i], 0, componentCandidates, 0, nCandidates[i]);
+            tasks.add(new ComponentSolver(components.get(i), componentCandidates, options.getEncoding()));
+        }
+        metrics.record("sat.components", components.size());
+        ForkJoinTask.invokeAll(tasks);
+        int[] backbone = new int[boardLength * boardLength + 1];
+        int nCalls = 0;
+        for (int i = 0; i < components.size(); i++) {
+            int[] componentBackbone = tasks.get(i).join();
+            nCalls += tasks.get(i).getSatCalls();
+            if (tasks.get(i).getError() != null) {
+                listener.onError(tasks.get(i).getError());
+            }
+            for (int literal : componentBackbone) {
+                if (literal != 0) {
+                    backbone[components.get(i).variables[Math.abs(literal) - 1]] = Integer.signum(literal);
+                }
+            }
+        }
+        metrics.record("sat.calls", nCalls);
+        return backbone;
+    }
+
+    /**
+     * Method which works out the backbone of the knowledge base over the unexamined cells it constrains, with a
+     * single solver. With the count of the tornadoes, the cells away from the hints share the result of the first of
+     * them.
+     * @param kb the knowledge base
+     * @return for each variable of the board, 1 if the cell is proven to be a tornado, -1 if it is proven safe, 0
+     * otherwise
+     */
+    private int[] findBackbone(KBBuilder kb) throws TimeoutException {
+        int[] candidates = new int[unexaminedCells.size()];
+        int nCandidates = 0;
+        // variable of the first unexamined cell with no uncovered neighbour, 0 if there is none
+        int interior = 0;
+        for (int i = 0; i < unexaminedCells.size(); i++) {
+            Cell cell = cells[unexaminedCells.get(i)];
+            int var = KBBuilder.variable(cell.x, cell.y, boardLength);
+            if (options.isCount() && !hasUncoveredNeighbour(unexaminedCells.get(i))) {
+                // the cells away from the hints only appear in the count of the tornadoes, so they are all alike and
+                // only the first one needs to be checked
+                if (interior != 0) {
+                    continue;
+                }
+                interior = var;
+            }
+            if (kb.isConstrained(var)) {
+                candidates[nCandidates] = var;
+                nCandidates++;
+            }
+        }
+        int[] constrainedCandidates = new int[nCandidates];
+        System.arraycopy(candidates, 0, constrainedCandidates, 0, nCandidates);
+        int nCalls = kb.getSatCalls();
+        int[] literals = kb.backbone(constrainedCandidates);
+        metrics.record("sat.calls", kb.getSatCalls() - nCalls);
+        int[] backbone = new int[boardLength * boardLength + 1];
+        for (int literal : literals) {
+            if (literal != 0) {
+                backbone[Math.abs(literal)] = Integer.signum(literal);
+            }
+        }
+        if (interior != 0 && backbone[interior] != 0) {
+            for (int i = 0; i < unexaminedCells.size(); i++) {
+                if (!hasUncoveredNeighbour(unexaminedCells.get(i))) {
+                    backbone[unexaminedCells.get(i) + 1] = backbone[interior];
+                }
+            }
+        }
+        return backbone;
+    }
+
+    /**
+     * Method which returns whether a cell has an uncovered neighbour, i.e. whether it is constrained by a hint
+     * @param index of the cell
+     * @return true if one of the neighbours of the cell has been uncovered
+     */
+    private boolean hasUncoveredNeighbour(int index) {
+        for (int k = adjacency.start(index); k < adjacency.end(index); k++) {
+            if (state[adjacency.neighbour(k)] == UNCOVERED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method which records the statistics kept by the SAT4J solver of a knowledge base e.g. its number of decisions and
+     * conflicts. The solver of the incremental session keeps its statistics across moves, so only their increase since
+     * the previous move is recorded.
+     * @param kb the knowledge base whose solver has just been used
+     */
+    private void recordSolverStats(KBBuilder kb) {
+        if (!metrics.isEnabled()) {
+            // the solver builds a map of its statistics on every call
+            return;
+        }
+        for (Map.Entry<String, Number> stat : kb.getSolver().getStat().entrySet()) {
+            long value = stat.getValue().longValue();
+            if (session != null && kb == session.getKB()) {
+                Long previous = sessionStats.put(stat.getKey(), value);
+                value -= previous == null ? 0 : previous;
+            }
+            Metrics.Histogram histogram = solverStats.get(stat.getKey());
+            if (histogram == null) {
+                histogram = metrics.histogram("sat4j." + stat.getKey());
+                solverStats.put(stat.getKey(), histogram);
+            }
+            histogram.add(value);
+        }
+    }
+
+    /**
+     * Method which carries out the SAT move strategy. It loads the knowledge base into the SAT4J solver, using the
+     * encoding set in the agent's options, and then works out in one pass every unexamined Cell that is safe in every
+     * model of the knowledge base and every one that is a tornado in every model. All of them are probed or marked in
+     * one batch, and a guess is made only if no cell is proven safe.
+     * @return true once the move has been made
      */
     public boolean makeSATMove() {
+        int[] backbone = findSATBackbone();
+        if (backbone == null) {
+            return true;
+        }
+        applyBackbone(backbone, SAT_BATCH);
+        return true;
+    }
 
-        ISolver solver;
-        Cell myCell = null;
-        String action = "R";
+    /**
+     * Method which loads the knowledge base into the SAT4J solver, using the encoding set in the agent's options, and
+     * works out its backbone over the unexamined cells.
+     * @return for each variable of the board, 1 if the cell is proven to be a tornado, -1 if it is proven safe, 0
+     * otherwise. null if the solver failed
+     */
+    private int[] findSATBackbone() {
+        KBBuilder kb;
+        int[] backbone = null;
+        long moveStart = System.nanoTime();
         try {
-            // Create the KB from the probed Cells
-            String kbString = convertKB(uncoveredCells);
-            DIMACSGenerator dimacsGenerator = new DIMACSGenerator();
-            // parse the String representing the knowledge base into a logical formula
-            Formula formula = p.parse(kbString);
-            // convert the formula to a CNF DIMACS encoding
-            int[][] dimacsClauses = dimacsGenerator.convertToDIMACS(formula);
-            // instantiate the solver
-            solver = SolverFactory.newDefault();
-            solver.newVar(1000);
-            solver.setExpectedNumberOfClauses(50000);
-            for (int j = 0; j < dimacsClauses.length; j++) {
-                VecInt vecInt = new VecInt(dimacsClauses[j]);
-                // add clause to solved
-                solver.addClause(vecInt);
-            }
-            // for every unexamined cells check whether the possibility of it containing a tornado is satisfiable.
-            // if not then it means that the cell can be probed safely.
-            for (Cell cell : unexaminedCells) {
-                String clause = "T" + Integer.toString(cell.x) + Integer.toString(cell.y);
-                if (dimacsGenerator.getLiteralsHashMap().containsKey(clause)) {
-                    int literal = dimacsGenerator.getLiteralsHashMap().get(clause);
-                    int[] literalArray = new int[]{literal};
-                    if (!solver.isSatisfiable(new VecInt(literalArray))) {
-                        myCell = cell;
-                        action = "P";
-                        break;
-                    }
+            if (session == null && options.isComponents() && !options.isCount()
+                    && !options.getEncoding().equals("DNF")) {
+                // each component of the frontier is solved on its own, concurrently
+                backbone = findBackboneByComponents();
+            } else {
+                if (session != null && !session.hasContradiction()) {
+                    // the session already holds the knowledge base, nothing needs to be rebuilt
+                    kb = session.getKB();
+                } else if (options.getEncoding().equals("DNF")) {
+                    kb = loadDNFKB();
+                } else {
+                    kb = loadCardinalityKB();
                 }
+                metrics.record("sat.kb.clauses", kb.getSolver().nConstraints());
+                metrics.record("sat.kb.variables", kb.getSolver().nVars());
+                // work out every unexamined cell which is a tornado in every model of the knowledge base, or in none
+                long start = System.nanoTime();
+                backbone = findBackbone(kb);
+                metrics.recordTime("sat.check.ns", start);
+                recordSolverStats(kb);
             }
-            if (action == "P") {
-                probeCell(myCell);
+        } catch (ParserException | ContradictionException | TimeoutException e) {
+            listener.onError(e);
+        }
+        metrics.recordTime("sat.move.ns", moveStart);
+        return backbone;
+    }
+
+    /**
+     * Method which acts upon a backbone in one batch: every cell proven to be a tornado is marked and every cell
+     * proven safe is probed. A guess is made only if no cell is proven either.
+     * @param backbone for each variable of the board, 1 if the cell is proven to be a tornado, -1 if it is proven
+     * safe, 0 otherwise
+     * @param batch index of the deduction in BATCH_SOURCES e.g. SAT_BATCH
+     */
+    private void applyBackbone(int[] backbone, int batch) {
+        if (actOnBackbone(backbone, batch) == 0 && !game.isGameOver()) {
+            makeGuess();
+        }
+    }
+
+    /**
+     * Method which marks every cell of a backbone proven to be a tornado and probes every cell proven safe
+     * @param backbone for each variable of the board, 1 if the cell is proven to be a tornado, -1 if it is proven
+     * safe, 0 otherwise
+     * @param batch index of the deduction in BATCH_SOURCES e.g. SAT_BATCH
+     * @return the number of cells probed or marked
+     */
+    private int actOnBackbone(int[] backbone, int batch) {
+        // the cells proven safe and proven to be tornadoes, in the order of the unexamined cells
+        ArrayList<Cell> safeCells = new ArrayList<>();
+        ArrayList<Cell> dangerCells = new ArrayList<>();
+        for (int i = 0; i < unexaminedCells.size(); i++) {
+            Cell cell = cells[unexaminedCells.get(i)];
+            int value = backbone[KBBuilder.variable(cell.x, cell.y, boardLength)];
+            if (value < 0) {
+                safeCells.add(cell);
+            } else if (value > 0) {
+                dangerCells.add(cell);
             }
-            else if (action == "R") {
-                System.out.println("SAT could not determine, going Random");
-                makeRandomMove();
+        }
+        batchSafe[batch].add(safeCells.size());
+        batchTornadoes[batch].add(dangerCells.size());
+        // the whole backbone is acted upon in one batch
+        for (Cell cell : dangerCells) {
+            markCell(cell);
+        }
+        for (Cell cell : safeCells) {
+            if (!game.isGameOver()) {
+                probeCell(cell);
             }
-        } catch (ParserException e) {
-            System.out.println("Parser Exception: " + e.getMessage());
+        }
+        return safeCells.size() + dangerCells.size();
+    }
+
+    /** ------------------------------------------- LINEAR METHODS -----------------------------------------------**/
+
 
-        } catch (ContradictionException e) {
-            System.out.println("Contradiction Exception: " + e.getMessage());
-        } catch (TimeoutException e) {
-            System.out.println("Exception: " + e.getMessage());
+    /**
+     * Method which applies the linear algebra tier: the hints of each component of the frontier are row reduced by a
+     * LinearSolver, and every cell a reduced row forces is marked or probed. It finds deductions that SPX misses, at a
+     * fraction of the cost of the SAT solver.
+     * @return the number of cells probed or marked
+     */
+    public int propagateLinear() {
+        long start = System.nanoTime();
+        Frontier frontier = buildFrontier();
+        int[] forced = new int[boardLength * boardLength + 1];
+        int nForced = 0;
+        for (Frontier.Component component : frontier.getComponents()) {
+            int[] values = new LinearSolver(component).solve();
+            for (int v = 1; v < values.length; v++) {
+                if (values[v] != 0) {
+                    forced[component.variables[v - 1]] = values[v];
+                    nForced++;
+                }
+            }
         }
-        return true;
+        metrics.recordTime("linear.ns", start);
+        metrics.record("linear.actions", nForced);
+        return nForced > 0 ? actOnBackbone(forced, LINEAR_BATCH) : 0;
+    }
+
+    /** ------------------------------------------- SUBSET METHODS -----------------------------------------------**/
+
+
+    /**
+     * Method which applies the subset rules: the unknown neighbours of the hints of each component of the frontier are
+     * compared pair by pair as bitmasks by a SubsetRules, and every cell the rules force is marked or probed. It finds
+     * the deductions of overlapping hints, which SPX misses, with no search and no elimination.
+     * @return the number of cells probed or marked
+     */
+    public int propagateSubsets() {
+        long start = System.nanoTime();
+        Frontier frontier = buildFrontier();
+        int[] forced = new int[boardLength * boardLength + 1];
+        int nForced = 0;
+        for (Frontier.Component component : frontier.getComponents()) {
+            int[] values = new SubsetRules(component).solve();
+            for (int v = 1; v < values.length; v++) {
+                if (values[v] != 0) {
+                    forced[component.variables[v - 1]] = values[v];
+                    nForced++;
+                }
+            }
+        }
+        metrics.recordTime("subset.ns", start);
+        metrics.record("subset.actions", nForced);
+        return nForced > 0 ? actOnBackbone(forced, SUBSET_BATCH) : 0;
+    }
+
+    /** ------------------------------------------- HYBRID METHODS -----------------------------------------------**/
+
+
+    /**
+     * Method which records the outcome of a tier of the hybrid strategy
+     * @param tier index of the tier in HYBRID_TIERS e.g. SPX_TIER
+     * @param nActions number of cells the tier probed or marked
+     * @param start time the tier started, as given by System.nanoTime
+     * @return true if the tier made progress
+     */
+    private boolean recordTier(int tier, int nActions, long start) {
+        tierTimes[tier].add(System.nanoTime() - start);
+        tierHits[tier].add(nActions > 0 ? 1 : 0);
+        return nActions > 0;
+    }
+
+    /**
+     * Method which carries out the hybrid move strategy. The deduction tiers are tried in increasing order of cost:
+     * the zero cascade, the SPX rules, the subset rules, linear algebra, and the backbone of each component of the
+     * frontier, worked out by a CSPSolver. The move ends with the first tier which probes or marks a cell, so the
+     * costlier tiers only run when the cheaper ones are stuck. If none of them makes progress, the cell least likely to
+     * be a tornado is probed. Every tier records how often it is reached, how often it makes progress, and how long it
+     * takes.
+     */
+    public void makeHybridMove() {
+        long start = System.nanoTime();
+        int nUncovered = uncoveredCells.size();
+        clearNeighbours();
+        if (recordTier(CASCADE_TIER, uncoveredCells.size() - nUncovered, start) || game.isGameWon()) {
+            return;
+        }
+        start = System.nanoTime();
+        if (recordTier(SPX_TIER, propagateSPX(), start)) {
+            return;
+        }
+        start = System.nanoTime();
+        if (recordTier(SUBSET_TIER, propagateSubsets(), start)) {
+            return;
+        }
+        start = System.nanoTime();
+        if (recordTier(LINEAR_TIER, propagateLinear(), start)) {
+            return;
+        }
+        start = System.nanoTime();
+        if (recordTier(CSP_TIER, actOnBackbone(findCSPBackbone(), CSP_BATCH), start)) {
+            return;
+        }
+        start = System.nanoTime();
+        makeGuess();
+        recordTier(GUESS_TIER, 1, start);
+    }
+
+    /** -------------------------------------------- CSP METHODS ------------------------------------------------**/
+
+
+    /**
+     * Method which carries out the CSP move strategy. It makes the same deductions as the SAT move strategy, but
+     * works out the backbone of each component of the frontier with a CSPSolver instead of a SAT solver, so there is
+     * no formula to build and no solver to load.
+     */
+    public void makeCSPMove() {
+        applyBackbone(findCSPBackbone(), CSP_BATCH);
+    }
+
+    /**
+     * Method which works out the backbone of each component of the frontier with its own CSPSolver. The components
+     * share no cell, so each of them is only as hard as its own hints, however large the board is.
+     * @return for each variable of the board, 1 if the cell is proven to be a tornado, -1 if it is proven safe, 0
+     * otherwise
+     */
+    private int[] findCSPBackbone() {
+        long moveStart = System.nanoTime();
+        Frontier frontier = buildFrontier();
+        ArrayList<Frontier.Component> components = frontier.getComponents();
+        int[] backbone = new int[boardLength * boardLength + 1];
+        long nNodes = 0;
+        for (Frontier.Component component : components) {
+            CSPSolver solver = new CSPSolver(component);
+            int[] componentBackbone = solver.backbone();
+            nNodes += solver.getNodes();
+            for (int v = 1; v < componentBackbone.length; v++) {
+                backbone[component.variables[v - 1]] = componentBackbone[v];
+            }
+        }
+        metrics.record("csp.components", components.size());
+        metrics.record("csp.nodes", nNodes);
+        metrics.recordTime("csp.move.ns", moveStart);
+        return backbone;
     }
 
     /**
@@ -645,29 +1283,47 @@ public class Agent {
             switch (type) {
                 case "RPX":
                     clearNeighbours();
-                    System.out.println();
+                    listener.onMoveStart();
                     if (!game.isGameWon()) {
                         //System.out.println("Making random move");
                         makeRandomMove();
-                        board.printBoard();
+                        listener.onMoveEnd(board);
                     }
                     break;
                 case "SPX":
                     clearNeighbours();
-                    System.out.println();
+                    listener.onMoveStart();
                     if (!game.isGameWon()) {
                         //System.out.println("Making SPX move");
                         makeSPXMove();
-                        board.printBoard();
+                        listener.onMoveEnd(board);
                     }
                     break;
                 case "SATX":
                     clearNeighbours();
-                    System.out.println();
+                    listener.onMoveStart();
                     if (!game.isGameWon()) {
                         //System.out.println("Making SAT move");
-                        makeSATMove();
-                        board.printBoard();
+                        // with the linear tier, the solver only runs when the SPX rules and the linear algebra are stuck
+                        if (!options.isLinear() || (propagateSPX() == 0 && propagateLinear() == 0)) {
+                            makeSATMove();
+                        }
+                        listener.onMoveEnd(board);
+                    }
+                    break;
+                case "HYBX":
+                    listener.onMoveStart();
+                    if (!game.isGameWon()) {
+                        makeHybridMove();
+                        listener.onMoveEnd(board);
+                    }
+                    break;
+                case "CSPX":
+                    clearNeighbours();
+                    listener.onMoveStart();
+                    if (!game.isGameWon()) {
+                        makeCSPMove();
+                        listener.onMoveEnd(board);
                     }
                     break;
                 default:
@@ -675,13 +1331,10 @@ public class Agent {
             }
         }
         // depending on whether the game has been won or not, it will return the appropriate string
+        listener.onGameEnd(game.isGameWon());
         if (game.isGameWon()) {
-            System.out.println("game won");
-            System.out.println();
             return "game won";
         } else {
-            System.out.println("game lost");
-            System.out.println();
             return "game lost";
         }
     }
@@ -0,0 +1,355 @@
+import java.io.OutputStream;
+
+/**
+ * Class holding the options which tune how an agent plays the game, independently of its type. The defaults reproduce
+ * the behaviour of the original agents, so an agent created without options plays exactly as before.
+ */
+public class AgentOptions {
+
+    // how the SATX agent encodes each hint i.e. DNF, PB, SEQ or TEMPLATE
+    private String encoding;
+    // how the DNF encoding is converted to CNF i.e. FACTOR, TSEITIN, PG or BOUNDED
+    private String cnf;
+    // whether the SATX agent keeps a single solver across the moves of a game
+    private boolean incremental;
+    // whether the SATX agent solves each connected component of the frontier on its own, concurrently
+    private boolean components;
+    // whether the SATX agent tries the SPX rules and linear algebra before the SAT solver
+    private boolean linear;
+    // whether the SATX agent knows that the covered cells hold exactly the tornadoes of the world not yet marked
+    private boolean count;
+    // how the SPX and SATX agents pick a cell when none can be proven safe i.e. RANDOM or PROBABILITY
+    private String guess;
+    // how the events of the game are written i.e. TEXT, TRACE or NONE
+    private String output;
+    // seed of the random moves of the agent, only used if seeded is true
+    private long seed;
+    private boolean seeded;
+    // file or, for a tournament, directory the binary move logs of the games are written to. null if not recorded
+    private String record;
+    // whether the agent records its metrics, only needed when they are exported
+    private boolean metrics;
+
+    /**
+     * Class constructor. Creates the default options. The PB encoding makes the same deductions as the original DNF
+     * encoding, without building and parsing the formula string.
+     */
+    public AgentOptions() {
+        this.encoding = "PB";
+        this.cnf = DIMACSGenerator.DEFAULT_CNF;
+        this.incremental = false;
+        this.components = false;
+        this.count = false;
+        this.linear = false;
+        this.guess = "RANDOM";
+        this.output = "TEXT";
+        this.seeded = false;
+        this.record = null;
+        this.metrics = false;
+    }
+
+    /**
+     * Method which returns a copy of the options with a different seed. Used to give every game of a tournament a
+     * seed of its own
+     * @param seed the seed of the random moves of the agent
+     * @return the copy of the options
+     */
+    public AgentOptions withSeed(long seed) {
+        AgentOptions copy = new AgentOptions();
+        copy.encoding = encoding;
+        copy.cnf = cnf;
+        copy.incremental = incremental;
+        copy.components = components;
+        copy.count = count;
+        copy.linear = linear;
+        copy.guess = guess;
+        copy.output = output;
+        copy.record = record;
+        copy.metrics = metrics;
+        copy.setSeed(seed);
+        return copy;
+    }
+
+    /**
+     * Method which parses the options passed on the command line, in the form --name=value
+     * @param args the command line arguments
+     * @param start index of the first argument holding an option
+     * @return the parsed options
+     */
+    public static AgentOptions parse(String[] args, int start) {
+        AgentOptions options = new AgentOptions();
+        for (int i = start; i < args.length; i++) {
+            String arg = args[i];
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Invalid option: " + arg);
+            }
+            String name = arg.substring(2, equals);
+            String value = arg.substring(equals + 1);
+            switch (name) {
+                case "encoding":
+                    options.setEncoding(value);
+                    break;
+                case "cnf":
+                    options.setCnf(value);
+                    break;
+                case "incremental":
+                    options.setIncremental(Boolean.parseBoolean(value));
+                    break;
+                case "components":
+                    options.setComponents(Boolean.parseBoolean(value));
+                    break;
+                case "linear":
+                    options.setLinear(Boolean.parseBoolean(value));
+                    break;
+                case "count":
+                    options.setCount(Boolean.parseBoolean(value));
+                    break;
+                case "guess":
+                    options.setGuess(value);
+                    break;
+                case "output":
+                    options.setOutput(value);
+                    break;
+                case "seed":
+                    options.setSeed(Long.parseLong(value));
+                    break;
+                case "record":
+                    options.setRecord(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + name);
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Simple getter
+     * @return the hint encoding used by the SATX agent
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Simple setter
+     * @param encoding DNF for the permutation expanded formula, PB for native pseudo-boolean constraints, SEQ for a
+     * sequential counter CNF or TEMPLATE for precomputed CNF clause templates
+     */
+    public void setEncoding(String encoding) {
+        if (!encoding.equals("DNF") && !encoding.equals("PB") && !encoding.equals("SEQ")
+                && !encoding.equals("TEMPLATE")) {
+            throw new IllegalArgumentException("Unknown encoding: " + encoding);
+        }
+        this.encoding = encoding;
+    }
+
+    /**
+     * Simple getter
+     * @return how the DNF encoding is converted to CNF
+     */
+    public String getCnf() {
+        return cnf;
+    }
+
+    /**
+     * Simple setter
+     * @param cnf FACTOR for the default distribution of LogicNG, TSEITIN or PG for auxiliary variables, or BOUNDED for
+     * a distribution bounded in size which falls back to PG
+     */
+    public void setCnf(String cnf) {
+        if (!cnf.equals("FACTOR") && !cnf.equals("TSEITIN") && !cnf.equals("PG") && !cnf.equals("BOUNDED")) {
+            throw new IllegalArgumentException("Unknown CNF strategy: " + cnf);
+        }
+        this.cnf = cnf;
+    }
+
+    /**
+     * Simple getter
+     * @return whether the SATX agent keeps a single solver across the moves of a game
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Simple setter. The incremental session only applies to the PB, SEQ and TEMPLATE encodings, the DNF encoding is always
+     * rebuilt on every move.
+     * @param incremental whether the SATX agent keeps a single solver across the moves of a game
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Simple getter
+     * @return whether the SATX agent solves each connected component of the frontier on its own
+     */
+    public boolean isComponents() {
+        return components;
+    }
+
+    /**
+     * Simple setter. The components are solved on the fork-join pool with the PB, SEQ or TEMPLATE encoding, and are rebuilt on
+     * every move, so the option is not used together with the incremental session.
+     * @param components whether the SATX agent solves each connected component of the frontier on its own
+     */
+    public void setComponents(boolean components) {
+        this.components = components;
+    }
+
+    /**
+     * Simple getter
+     * @return whether the SATX agent tries the SPX rules and linear algebra before the SAT solver
+     */
+    public boolean isLinear() {
+        return linear;
+    }
+
+    /**
+     * Simple setter
+     * @param linear whether the SATX agent tries the SPX rules and then linear algebra on every move, and only runs
+     * the SAT solver when neither of them makes progress
+     */
+    public void setLinear(boolean linear) {
+        this.linear = linear;
+    }
+
+    /**
+     * Simple getter
+     * @return whether the SATX agent adds the global constraint on the number of tornadoes
+     */
+    public boolean isCount() {
+        return count;
+    }
+
+    /**
+     * Simple setter. The global constraint ties all the cells of the board together, so the frontier is not split
+     * into components while it is used.
+     * @param count whether the SATX agent adds the global constraint on the number of tornadoes
+     */
+    public void setCount(boolean count) {
+        this.count = count;
+    }
+
+    /**
+     * Simple getter
+     * @return how the SPX and SATX agents pick a cell when none can be proven safe
+     */
+    public String getGuess() {
+        return guess;
+    }
+
+    /**
+     * Simple setter
+     * @param guess RANDOM to probe a random cell or PROBABILITY to probe the cell least likely to be a tornado
+     */
+    public void setGuess(String guess) {
+        if (!guess.equals("RANDOM") && !guess.equals("PROBABILITY")) {
+            throw new IllegalArgumentException("Unknown guess: " + guess);
+        }
+        this.guess = guess;
+    }
+
+    /**
+     * Simple getter
+     * @return how the events of the game are written
+     */
+    public String getOutput() {
+        return output;
+    }
+
+    /**
+     * Simple setter
+     * @param output TEXT for the readable board views, TRACE for a compact trace of the events or NONE for no output
+     */
+    public void setOutput(String output) {
+        if (!output.equals("TEXT") && !output.equals("TRACE") && !output.equals("NONE")) {
+            throw new IllegalArgumentException("Unknown output: " + output);
+        }
+        this.output = output;
+    }
+
+    /**
+     * Simple getter
+     * @return the seed of the random moves of the agent
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Simple setter. Once set, the random moves of the agent are the same on every run
+     * @param seed the seed of the random moves of the agent
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.seeded = true;
+    }
+
+    /**
+     * Simple getter
+     * @return whether the random moves of the agent are seeded
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Simple getter
+     * @return the file or directory the move logs are written to, null if the games are not recorded
+     */
+    public String getRecord() {
+        return record;
+    }
+
+    /**
+     * Simple setter
+     * @param record the file the move log of a game is written to or, for a tournament, the directory the move log
+     * of every game is written to
+     */
+    public void setRecord(String record) {
+        this.record = record;
+    }
+
+    /**
+     * Simple getter
+     * @return whether the agent records its metrics
+     */
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Simple setter. Set by A2Test when the metrics are exported; otherwise the agent records nothing
+     * @param metrics whether the agent records its metrics
+     */
+    public void setMetrics(boolean metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Method which creates the listener writing the events of a game to the console, as set by the output option
+     * @return the listener matching the output option
+     */
+    public GameListener createListener() {
+        return createListener(System.out);
+    }
+
+    /**
+     * Method which creates the listener writing the events of a game to a stream, as set by the output option
+     * @param stream the stream the events are written to
+     * @return the listener matching the output option
+     */
+    public GameListener createListener(OutputStream stream) {
+        switch (output) {
+            case "TRACE":
+                return new TraceListener(stream);
+            case "NONE":
+                return new SilentListener();
+            default:
+                return new TextListener(stream);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/**
+ * Class which solves the hint constraints of a component of the frontier without a SAT solver. Every constraint says
+ * that exactly k of its (at most six) cells are tornadoes, and keeps which of its cells are known to be tornadoes and
+ * which are known to be safe as two bitmasks over its slots, so the number of tornadoes placed and of cells left free
+ * are a bit count away. Assigning a cell only touches the constraints it appears in. A constraint whose count is
+ * reached sets its free cells safe, and one which needs all its free cells sets them to tornadoes.
+ *
+ * The search branches on the free cell with the highest activity. The activity of the cells of a constraint is
+ * raised every time the constraint is violated, so the search turns to the cells that cause conflicts first. The
+ * backbone is worked out the same way as by KBBuilder: every assignment found shows the values the cells can take, and
+ * a cell is only checked if no assignment so far has given it both values.
+ */
+public class CSPSolver {
+
+    // factor by which the activity bump grows after every conflict, so that recent conflicts weigh more
+    private static final double ACTIVITY_GROWTH = 1.05;
+
+    // number of variables i.e. cells of the component, numbered from 1
+    private int n;
+    // the cells of each constraint, indexed by slot
+    private int[][] constraintVariables;
+    // the number of tornadoes of each constraint
+    private int[] constraintTornadoes;
+    // the mask of the slots of each constraint
+    private int[] slotMask;
+    // the slots of each constraint holding a cell assigned a tornado, and safe
+    private int[] tornadoSlots;
+    private int[] safeSlots;
+    // the constraints of each variable, and the slot of the variable in each of them
+    private int[][] variableConstraints;
+    private int[][] variableSlots;
+    // value of each variable: 1 tornado, -1 safe, 0 free
+    private int[] value;
+    // the variables in the order they were assigned, and the first one whose consequences are not worked out yet
+    private int[] trail;
+    private int trailSize;
+    private int propagated;
+    // activity of each variable, and the amount it is raised by on the next conflict
+    private double[] activity;
+    private double bump;
+    // number of nodes of the search so far
+    private long nodes;
+
+    /**
+     * Class constructor
+     * @param component the component of the frontier to be solved
+     */
+    public CSPSolver(Frontier.Component component) {
+        this.n = component.variables.length;
+        int nConstraints = component.constraintLiterals.size();
+        this.constraintVariables = new int[nConstraints][];
+        this.constraintTornadoes = new int[nConstraints];
+        this.slotMask = new int[nConstraints];
+        this.tornadoSlots = new int[nConstraints];
+        this.safeSlots = new int[nConstraints];
+        int[] degree = new int[n + 1];
+        for (int c = 0; c < nConstraints; c++) {
+            constraintVariables[c] = component.constraintLiterals.get(c);
+            constraintTornadoes[c] = component.constraintTornadoes.get(c);
+            slotMask[c] = (1 << constraintVariables[c].length) - 1;
+            for (int var : constraintVariables[c]) {
+                degree[var]++;
+            }
+        }
+        this.variableConstraints = new int[n + 1][];
+        this.variableSlots = new int[n + 1][];
+        for (int v = 1; v <= n; v++) {
+            variableConstraints[v] = new int[degree[v]];
+            variableSlots[v] = new int[degree[v]];
+            degree[v] = 0;
+        }
+        for (int c = 0; c < nConstraints; c++) {
+            for (int slot = 0; slot < constraintVariables[c].length; slot++) {
+                int var = constraintVariables[c][slot];
+                variableConstraints[var][degree[var]] = c;
+                variableSlots[var][degree[var]] = slot;
+                degree[var]++;
+            }
+        }
+        this.value = new int[n + 1];
+        this.trail = new int[n];
+        this.activity = new double[n + 1];
+        this.bump = 1;
+    }
+
+    /**
+     * Method which assigns a value to a variable and records it on the constraints of the variable. The consequences
+     * are worked out by propagate.
+     * @param var the variable
+     * @param tornado whether the cell is a tornado
+     * @return false if the variable already has the other value
+     */
+    private boolean assign(int var, boolean tornado) {
+        if (value[var] != 0) {
+            return (value[var] > 0) == tornado;
+        }
+        value[var] = tornado ? 1 : -1;
+        for (int i = 0; i < variableConstraints[var].length; i++) {
+            int c = variableConstraints[var][i];
+            if (tornado) {
+                tornadoSlots[c] |= 1 << variableSlots[var][i];
+            } else {
+                safeSlots[c] |= 1 << variableSlots[var][i];
+            }
+        }
+        trail[trailSize] = var;
+        trailSize++;
+        return true;
+    }
+
+    /**
+     * Method which undoes the assignments made after a point of the trail
+     * @param size the size of the trail to go back to
+     */
+    private void undo(int size) {
+        while (trailSize > size) {
+            trailSize--;
+            int var = trail[trailSize];
+            for (int i = 0; i < variableConstraints[var].length; i++) {
+                int c = variableConstraints[var][i];
+                tornadoSlots[c] &= ~(1 << variableSlots[var][i]);
+                safeSlots[c] &= ~(1 << variableSlots[var][i]);
+            }
+            value[var] = 0;
+        }
+        propagated = Math.min(propagated, trailSize);
+    }
+
+    /**
+     * Method which checks a constraint and assigns the free cells it forces
+     * @param c the constraint
+     * @return false if the constraint can no longer be satisfied
+     */
+    private boolean check(int c) {
+        int free = slotMask[c] & ~(tornadoSlots[c] | safeSlots[c]);
+        int nTornadoes = Integer.bitCount(tornadoSlots[c]);
+        int nFree = Integer.bitCount(free);
+        int k = constraintTornadoes[c];
+        if (nTornadoes > k || nTornadoes + nFree < k) {
+            // the cells of the violated constraint are the ones to branch on next
+            for (int var : constraintVariables[c]) {
+                activity[var] += bump;
+            }
+            bump *= ACTIVITY_GROWTH;
+            return false;
+        }
+        if (free != 0 && (nTornadoes == k || nTornadoes + nFree == k)) {
+            boolean tornado = nTornadoes < k;
+            for (int slots = free; slots != 0; slots &= slots - 1) {
+                assign(constraintVariables[c][Integer.numberOfTrailingZeros(slots)], tornado);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method which works out the consequences of the assignments not propagated yet
+     * @return false if a constraint can no longer be satisfied
+     */
+    private boolean propagate() {
+        while (propagated < trailSize) {
+            int var = trail[propagated];
+            propagated++;
+            for (int c : variableConstraints[var]) {
+                if (!check(c)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method which searches for an assignment of the free variables satisfying every constraint, on top of the
+     * assignments already made
+     * @return true if one is found, in which case the variables keep its values
+     */
+    private boolean search() {
+        nodes++;
+        int branch = 0;
+        for (int v = 1; v <= n; v++) {
+            if (value[v] == 0 && (branch == 0 || activity[v] > activity[branch])) {
+                branch = v;
+            }
+        }
+        if (branch == 0) {
+            return true;
+        }
+        int size = trailSize;
+        // safe first, as most cells are
+        for (int tornado = 0; tornado <= 1; tornado++) {
+            assign(branch, tornado == 1);
+            if (propagate() && search()) {
+                return true;
+            }
+            undo(size);
+        }
+        return false;
+    }
+
+    /**
+     * Method which starts again from the backbone found so far and looks for an assignment of the other variables
+     * @param fixed the value of each variable known to be in the backbone, 0 for the others
+     * @param var a variable to be assumed as well, 0 for none
+     * @param tornado the value assumed for the variable
+     * @return true if an assignment is found
+     */
+    private boolean solve(int[] fixed, int var, boolean tornado) {
+        undo(0);
+        propagated = 0;
+        for (int c = 0; c < constraintVariables.length; c++) {
+            if (!check(c)) {
+                return false;
+            }
+        }
+        for (int v = 1; v <= n; v++) {
+            if (fixed[v] != 0 && !assign(v, fixed[v] > 0)) {
+                return false;
+            }
+        }
+        if (var != 0 && !assign(var, tornado)) {
+            return false;
+        }
+        return propagate() && search();
+    }
+
+    /**
+     * Method which works out which variables have the same value in every assignment satisfying the constraints
+     * @return for each variable, indexed from 1, 1 if it is a tornado in every assignment, -1 if it is safe in every
+     * assignment, 0 otherwise. All 0 if the constraints cannot be satisfied
+     */
+    public int[] backbone() {
+        int[] backbone = new int[n + 1];
+        // holds whether each variable has been a tornado, and safe, in an assignment found so far
+        boolean[] seenTornado = new boolean[n + 1];
+        boolean[] seenSafe = new boolean[n + 1];
+        if (!solve(backbone, 0, false)) {
+            return backbone;
+        }
+        recordAssignment(seenTornado, seenSafe);
+        for (int v = 1; v <= n; v++) {
+            if (seenTornado[v] && seenSafe[v]) {
+                continue;
+            }
+            // look for an assignment giving the variable the value it has not had yet
+            if (solve(backbone, v, !seenTornado[v])) {
+                recordAssignment(seenTornado, seenSafe);
+            } else {
+                backbone[v] = seenTornado[v] ? 1 : -1;
+            }
+        }
+        return backbone;
+    }
+
+    /**
+     * Method which records the value of each variable in the assignment just found
+     * @param seenTornado holds whether each variable has been a tornado in an assignment
+     * @param seenSafe holds whether each variable has been safe in an assignment
+     */
+    private void recordAssignment(boolean[] seenTornado, boolean[] seenSafe) {
+        for (int v = 1; v <= n; v++) {
+            if (value[v] > 0) {
+                seenTornado[v] = true;
+            } else {
+                seenSafe[v] = true;
+            }
+        }
+    }
+
+    /**
+     * Simple getter
+     * @return the number of nodes of the search so far
+     */
+    public long getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.ArrayList;
+
+/**
+ * Class which encodes "exactly k of these literals are true" constraints into CNF using a sequential counter. Each
+ * hint of the board becomes such a constraint over its unknown neighbours, which keeps the size of the knowledge base
+ * linear in the number of hints instead of growing with the permutations of the neighbours.
+ */
+public class CardinalityEncoder {
+
+    // next variable id that can be used as an auxiliary counter variable
+    private int nextVar;
+
+    /**
+     * Class constructor
+     * @param firstFreeVar first variable id not used by the cell literals
+     */
+    public CardinalityEncoder(int firstFreeVar) {
+        this.nextVar = firstFreeVar;
+    }
+
+    /**
+     * Method which encodes that exactly k of the literals passed as a parameter are true. The counter variable
+     * r[i][j] holds whether at least j of the first i literals are true, counting up to k + 1.
+     * @param literals the DIMACS literals to be counted
+     * @param k the number of literals which must be true
+     * @param clauses list to which the DIMACS clauses of the encoding are appended
+     */
+    public void exactly(int[] literals, int k, ArrayList<int[]> clauses) {
+        int n = literals.length;
+        // the constraint can never hold, add the empty clause
+        if (k < 0 || k > n) {
+            clauses.add(new int[0]);
+            return;
+        }
+        // none or all of the literals are true, no counter needed
+        if (k == 0 || k == n) {
+            for (int literal : literals) {
+                clauses.add(new int[]{k == 0 ? -literal : literal});
+            }
+            return;
+        }
+        int[][] r = new int[n + 1][k + 2];
+        for (int i = 1; i <= n; i++) {
+            int x = literals[i - 1];
+            for (int j = 1; j <= Math.min(i, k + 1); j++) {
+                r[i][j] = nextVar++;
+                // at least j of the first i - 1 literals implies at least j of the first i literals
+                if (j <= i - 1) {
+                    clauses.add(new int[]{-r[i - 1][j], r[i][j]});
+                }
+                // the literal i together with at least j - 1 of the previous ones implies at least j
+                if (j == 1) {
+                    clauses.add(new int[]{-x, r[i][j]});
+                } else {
+                    clauses.add(new int[]{-x, -r[i - 1][j - 1], r[i][j]});
+                }
+                // and the other way around, so that the counter is exact
+                if (j <= i - 1) {
+                    clauses.add(new int[]{-r[i][j], r[i - 1][j], x});
+                } else {
+                    clauses.add(new int[]{-r[i][j], x});
+                }
+                if (j >= 2) {
+                    clauses.add(new int[]{-r[i][j], r[i - 1][j - 1]});
+                }
+            }
+        }
+        // at least k and not at least k + 1
+        clauses.add(new int[]{r[n][k]});
+        clauses.add(new int[]{-r[n][k + 1]});
+    }
+
+    /**
+     * Method which reserves a new auxiliary variable
+     * @return the id of the variable
+     */
+    public int newVar() {
+        return nextVar++;
+    }
+
+    /**
+     * Method which makes sure that a variable used elsewhere is never handed out as an auxiliary variable
+     * @param var the id of the variable
+     */
+    public void reserve(int var) {
+        nextVar = Math.max(nextVar, var + 1);
+    }
+
+    /**
+     * Simple getter
+     * @return the next variable id that has not been used by the encoder
+     */
+    public int getNextVar() {
+        return nextVar;
+    }
+}
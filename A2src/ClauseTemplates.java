@@ -0,0 +1,146 @@
+import java.util.ArrayList;
+
+/**
+ * Class holding the CNF clauses of every hint constraint a hexagonal cell can have, precomputed once. The constraint
+ * of a hint only depends on the hint, on how many of its neighbours are marked and on which of its (at most six)
+ * neighbour slots are still unknown, so there are 7 * 7 * 64 of them. Each template is stated over the slots of the
+ * neighbours rather than over variables: the literal s + 1 stands for "the neighbour in slot s is a tornado" and
+ * -(s + 1) for its negation. Encoding a hint then means copying its template and putting the variables of the
+ * neighbours in place of the slots, with no permutation, parsing or CNF conversion.
+ *
+ * "Exactly k of the u unknown slots are tornadoes" is written as one clause of negative literals for every k + 1 of
+ * the slots, so that at most k are tornadoes, and one clause of positive literals for every u - k + 1 of the slots,
+ * so that at least k are. No auxiliary variable is needed, and a hint never has more than 30 clauses.
+ */
+public class ClauseTemplates {
+
+    // number of neighbour slots of a cell
+    public static final int SLOTS = 6;
+    // template of a hint that can never hold, i.e. the empty clause
+    private static final int[][] CONTRADICTION = {{}};
+    // clauses stating that exactly k of the slots of a mask are tornadoes, indexed by k and mask
+    private static final int[][][][] EXACTLY = buildExactly();
+    // template of each hint, indexed by hint, number of marked neighbours and mask of the unknown slots
+    private static final int[][][][][] TEMPLATES = buildTemplates();
+
+    /**
+     * Method which builds the clauses stating that exactly k of the slots of a mask are tornadoes, for every k and mask
+     * @return the clauses over the slots, indexed by k and mask
+     */
+    private static int[][][][] buildExactly() {
+        int[][][][] exactly = new int[SLOTS + 1][1 << SLOTS][][];
+        for (int k = 0; k <= SLOTS; k++) {
+            for (int mask = 0; mask < 1 << SLOTS; mask++) {
+                exactly[k][mask] = buildExactly(k, mask);
+            }
+        }
+        return exactly;
+    }
+
+    /**
+     * Method which builds the templates of all the hints. A template only depends on the hint through the number of
+     * tornadoes left among the unknown slots, so the templates of the hints share the clauses of EXACTLY.
+     * @return the templates, indexed by hint, number of marked neighbours and mask of the unknown slots
+     */
+    private static int[][][][][] buildTemplates() {
+        int[][][][][] templates = new int[SLOTS + 1][SLOTS + 1][][][];
+        for (int hint = 0; hint <= SLOTS; hint++) {
+            for (int marked = 0; marked <= SLOTS; marked++) {
+                templates[hint][marked] = new int[1 << SLOTS][][];
+                for (int mask = 0; mask < 1 << SLOTS; mask++) {
+                    templates[hint][marked][mask] = exactly(hint - marked, mask);
+                }
+            }
+        }
+        return templates;
+    }
+
+    /**
+     * Method which builds the clauses stating that exactly k of the slots of a mask are tornadoes
+     * @param k the number of tornadoes among the slots
+     * @param mask the slots, one bit per slot
+     * @return the clauses over the slots
+     */
+    private static int[][] buildExactly(int k, int mask) {
+        int u = Integer.bitCount(mask);
+        if (k > u) {
+            return CONTRADICTION;
+        }
+        ArrayList<int[]> clauses = new ArrayList<>();
+        // no k + 1 of the slots are all tornadoes
+        addSubsets(mask, k + 1, false, clauses);
+        // no u - k + 1 of the slots are all safe
+        addSubsets(mask, u - k + 1, true, clauses);
+        return clauses.toArray(new int[clauses.size()][]);
+    }
+
+    /**
+     * Method which adds one clause for every subset of a given size of the slots of a mask
+     * @param mask the slots, one bit per slot
+     * @param size the number of slots in each clause
+     * @param positive whether the slots appear as positive or negative literals
+     * @param clauses list to which the clauses are appended
+     */
+    private static void addSubsets(int mask, int size, boolean positive, ArrayList<int[]> clauses) {
+        if (size > Integer.bitCount(mask)) {
+            return;
+        }
+        for (int subset = mask; subset > 0; subset = (subset - 1) & mask) {
+            if (Integer.bitCount(subset) != size) {
+                continue;
+            }
+            int[] clause = new int[size];
+            int n = 0;
+            for (int slot = 0; slot < SLOTS; slot++) {
+                if ((subset & (1 << slot)) != 0) {
+                    clause[n] = positive ? slot + 1 : -(slot + 1);
+                    n++;
+                }
+            }
+            clauses.add(clause);
+        }
+    }
+
+    /**
+     * Method which returns the template of a hint
+     * @param hint the hint of the cell
+     * @param marked the number of neighbours of the cell marked as tornadoes
+     * @param mask the unknown neighbour slots of the cell, one bit per slot
+     * @return the clauses of the hint over the slots, a single empty clause if the hint can never hold
+     */
+    public static int[][] get(int hint, int marked, int mask) {
+        return TEMPLATES[hint][marked][mask];
+    }
+
+    /**
+     * Method which returns the clauses stating that exactly k of the slots of a mask are tornadoes
+     * @param k the number of tornadoes among the slots
+     * @param mask the slots, one bit per slot
+     * @return the clauses over the slots, a single empty clause if k is out of range
+     */
+    public static int[][] exactly(int k, int mask) {
+        if (k < 0 || k > SLOTS) {
+            return CONTRADICTION;
+        }
+        return EXACTLY[k][mask];
+    }
+
+    /**
+     * Method which puts the variables of the neighbours in place of the slots of a clause template
+     * @param template clause over the slots
+     * @param slotVariables the variable of the neighbour in each slot
+     * @param guard extra literal appended to the clause, e.g. the negation of an activation literal, or 0 for none
+     * @return the clause over the variables of the neighbours
+     */
+    public static int[] instantiate(int[] template, int[] slotVariables, int guard) {
+        int[] clause = new int[guard == 0 ? template.length : template.length + 1];
+        for (int i = 0; i < template.length; i++) {
+            int slotLiteral = template[i];
+            clause[i] = slotLiteral > 0 ? slotVariables[slotLiteral - 1] : -slotVariables[-slotLiteral - 1];
+        }
+        if (guard != 0) {
+            clause[template.length] = guard;
+        }
+        return clause;
+    }
+}
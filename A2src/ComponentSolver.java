@@ -0,0 +1,74 @@
+import java.util.concurrent.RecursiveTask;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.TimeoutException;
+
+/**
+ * Fork-join task which loads a single component of the frontier into its own small solver and works out which of its
+ * cells can be proven safe or proven to be tornadoes. The components share no cell, so they can be solved
+ * concurrently.
+ */
+public class ComponentSolver extends RecursiveTask<int[]> {
+
+    // version of the serialised form of the task
+    private static final long serialVersionUID = 1L;
+
+    // the component to be solved
+    private Frontier.Component component;
+    // the local variables of the cells to be checked, in the order in which they are to be checked
+    private int[] candidates;
+    // encoding of the hint constraints i.e. PB, SEQ or TEMPLATE
+    private String encoding;
+    // number of calls made to the solver of the component
+    private int satCalls;
+    // the exception raised by the solver, null if there is none
+    private Exception error;
+
+    /**
+     * Class constructor
+     * @param component the component to be solved
+     * @param candidates the local variables of the cells to be checked, in the order in which they are to be checked
+     * @param encoding encoding of the hint constraints i.e. PB, SEQ or TEMPLATE
+     */
+    public ComponentSolver(Frontier.Component component, int[] candidates, String encoding) {
+        this.component = component;
+        this.candidates = candidates;
+        this.encoding = encoding;
+    }
+
+    /**
+     * Method which loads the component into a solver and works out the backbone of the candidate cells.
+     * @return for each candidate, the candidate if it is a tornado, minus the candidate if it is safe, 0 otherwise
+     */
+    @Override
+    protected int[] compute() {
+        try {
+            KBBuilder kb = KBBuilder.withLocalVariables(component.variables.length, encoding);
+            for (int i = 0; i < component.constraintLiterals.size(); i++) {
+                kb.addExactly(component.constraintLiterals.get(i), component.constraintTornadoes.get(i));
+            }
+            int[] backbone = kb.backbone(candidates);
+            satCalls = kb.getSatCalls();
+            return backbone;
+        } catch (ContradictionException | TimeoutException e) {
+            // the task runs on a worker thread, so the error is left for the agent to report once it has joined it
+            error = e;
+        }
+        return new int[candidates.length];
+    }
+
+    /**
+     * Simple getter
+     * @return the number of calls made to the solver of the component, once the task is done
+     */
+    public int getSatCalls() {
+        return satCalls;
+    }
+
+    /**
+     * Simple getter
+     * @return the exception raised by the solver of the component once the task is done, null if there is none
+     */
+    public Exception getError() {
+        return error;
+    }
+}
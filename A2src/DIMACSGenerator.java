@@ -1,5 +1,10 @@
 import org.logicng.formulas.Formula;
 import org.logicng.formulas.Literal;
+import org.logicng.predicates.CNFPredicate;
+import org.logicng.transformations.cnf.CNFConfig;
+import org.logicng.transformations.cnf.CNFEncoder;
+import org.logicng.transformations.cnf.PlaistedGreenbaumTransformation;
+import org.logicng.transformations.cnf.TseitinTransformation;
 import java.util.HashMap;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -9,10 +14,89 @@ import java.util.Set;
 /**
  * Class which takes the knowledge base as a logic formula and converts it into cnf and then into the DIMACS formar
  * as required by the SAT solver to be used.
+ *
+ * The conversion to CNF follows one of these strategies:
+ * - FACTOR, the default conversion of LogicNG, which distributes the disjunctions of each hint over each other
+ * - TSEITIN, which gives every subformula an auxiliary variable equivalent to it
+ * - PG, the Plaisted-Greenbaum transformation, which only keeps the half of the Tseitin equivalences the formula needs
+ * - BOUNDED, which distributes each hint until it creates more than CLAUSE_BOUNDARY clauses, and then falls back to PG
+ * With TSEITIN, PG and BOUNDED the size of the CNF grows linearly with the number of hints. The auxiliary variables
+ * they introduce come after the cell variables, so they are never mistaken for cells.
  */
 public class DIMACSGenerator {
+    // strategy used when none is given
+    public static final String DEFAULT_CNF = "BOUNDED";
+    // number of clauses the distribution of a single hint may create before the BOUNDED strategy falls back to PG
+    public static final int CLAUSE_BOUNDARY = 64;
+    // configuration of the CNF encoder used by the BOUNDED strategy
+    private static final CNFConfig BOUNDED_CONFIG = new CNFConfig.Builder()
+            .algorithm(CNFConfig.Algorithm.ADVANCED)
+            .fallbackAlgorithmForAdvancedEncoding(CNFConfig.Algorithm.PLAISTED_GREENBAUM)
+            .createdClauseBoundary(CLAUSE_BOUNDARY)
+            .atomBoundary(0)
+            .build();
+
     // Hash Map which will hold the encoding of the literals used in the clauses.
     private HashMap<String, Integer> literalsHashMap;
+    // length of the board, used to give the cell literals the same variables as the KBBuilder. 0 if unknown
+    private int boardLength;
+    // strategy of the conversion to CNF i.e. FACTOR, TSEITIN, PG or BOUNDED
+    private String cnfStrategy;
+    // number of variables given so far to literals which are not cells e.g. auxiliary variables
+    private int nOtherVariables;
+
+    /**
+     * Class constructor. The literals are numbered in the order in which they are encoded
+     */
+    public DIMACSGenerator() {
+        this(0);
+    }
+
+    /**
+     * Class constructor. The cell literals, named T followed by the x and y coordinates separated by an underscore,
+     * are given the variable of the cell used by the KBBuilder. Any other literal comes after the cell variables.
+     * @param boardLength length of the board
+     */
+    public DIMACSGenerator(int boardLength) {
+        this(boardLength, DEFAULT_CNF);
+    }
+
+    /**
+     * Class constructor
+     * @param boardLength length of the board
+     * @param cnfStrategy strategy of the conversion to CNF i.e. FACTOR, TSEITIN, PG or BOUNDED
+     */
+    public DIMACSGenerator(int boardLength, String cnfStrategy) {
+        if (!cnfStrategy.equals("FACTOR") && !cnfStrategy.equals("TSEITIN") && !cnfStrategy.equals("PG")
+                && !cnfStrategy.equals("BOUNDED")) {
+            throw new IllegalArgumentException("Unknown CNF strategy: " + cnfStrategy);
+        }
+        this.boardLength = boardLength;
+        this.cnfStrategy = cnfStrategy;
+    }
+
+    /**
+     * Method which converts a logic formula to CNF, following the strategy of the generator. Every model of the CNF
+     * is a model of the formula once the auxiliary variables are dropped, and every model of the formula can be
+     * extended to a model of the CNF, so both have the same backbone over the cells.
+     * @param formula the logic formula to be converted
+     * @return the formula in CNF, the formula itself if it is already in CNF
+     */
+    public Formula toCNF(Formula formula) {
+        if (formula.holds(new CNFPredicate())) {
+            return formula;
+        }
+        switch (cnfStrategy) {
+            case "TSEITIN":
+                return formula.transform(new TseitinTransformation(0));
+            case "PG":
+                return formula.transform(new PlaistedGreenbaumTransformation(0));
+            case "BOUNDED":
+                return new CNFEncoder(formula.factory(), BOUNDED_CONFIG).encode(formula);
+            default:
+                return formula.cnf();
+        }
+    }
 
     /**
      * Method which takes the logic formula to be translated into DIMACS format
@@ -21,9 +105,10 @@ public class DIMACSGenerator {
      */
     public int[][] convertToDIMACS(Formula formula){
         literalsHashMap = new HashMap<>();
+        nOtherVariables = 0;
         ArrayList<int[]> clauses = new ArrayList<>();
         // convert the formula into CNF format
-        Formula cnf = formula.cnf();
+        Formula cnf = toCNF(formula);
         // encode the literals into integers
         encodeLiterals(cnf.literals());
         Iterator<Formula> iterator = cnf.iterator();
@@ -91,7 +176,7 @@ public class DIMACSGenerator {
                 }
                 // if positive counterpart has not been encoded
                 else {
-                    literalsHashMap.put(literalPos, literalsHashMap.size()+1);
+                    literalsHashMap.put(literalPos, encodeVariable(literalPos));
                     literalsHashMap.put(literal, literalsHashMap.get(literalPos)* (-1));
                 }
             }
@@ -116,7 +201,7 @@ public class DIMACSGenerator {
                     literalsHashMap.put(literal, literalsHashMap.get(literalNeg) * (-1));
                 }
                 else {
-                    literalsHashMap.put(literal, literalsHashMap.size() + 1);
+                    literalsHashMap.put(literal, encodeVariable(literal));
                     literalsHashMap.put(literalNeg, literalsHashMap.get(literal) * (-1));
                 }
             }
@@ -133,6 +218,21 @@ public class DIMACSGenerator {
         }
     }
 
+    /**
+     * Method which returns the integer value of a positive literal that has not been encoded yet
+     * @param literal the positive literal to be encoded
+     * @return the variable of the literal
+     */
+    private int encodeVariable(String literal) {
+        int separator = literal.indexOf('_');
+        if (boardLength > 0 && literal.startsWith("T") && separator > 0) {
+            int x = Integer.parseInt(literal.substring(1, separator));
+            int y = Integer.parseInt(literal.substring(separator + 1));
+            return KBBuilder.variable(x, y, boardLength);
+        }
+        nOtherVariables++;
+        return boardLength * boardLength + nOtherVariables;
+    }
 
     /**
      * Simple getter
@@ -0,0 +1,165 @@
+import java.util.ArrayList;
+
+/**
+ * Class representing the frontier of the board i.e. the hint constraints over the unknown cells next to uncovered
+ * cells. The constraints are split into connected components: two unknown cells are connected if they appear in the
+ * same constraint. Constraints in different components share no cell, so each component can be reasoned about on its
+ * own.
+ */
+public class Frontier {
+
+    /**
+     * Class representing a connected component of the frontier. Its cells are numbered locally from 1, in the order
+     * in which they first appear in its constraints.
+     */
+    public static class Component {
+        // the cell variables of the component, indexed by local variable - 1
+        public int[] variables;
+        // the constraints of the component over local variables
+        public ArrayList<int[]> constraintLiterals = new ArrayList<>();
+        // the number of tornadoes of each constraint
+        public ArrayList<Integer> constraintTornadoes = new ArrayList<>();
+    }
+
+    // number of cell variables i.e. the number of cells of the board
+    private int nCells;
+    // the unknown cell variables of each constraint
+    private ArrayList<int[]> constraintLiterals;
+    // the number of tornadoes of each constraint
+    private ArrayList<Integer> constraintTornadoes;
+    // the components of the frontier, worked out when first needed
+    private ArrayList<Component> components;
+    // the component of each cell variable, -1 if the cell is not in the frontier
+    private int[] componentOf;
+    // the local variable of each cell variable within its component, 0 if the cell is not in the frontier
+    private int[] localVariable;
+
+    /**
+     * Class constructor
+     * @param nCells number of cells of the board
+     */
+    public Frontier(int nCells) {
+        this.nCells = nCells;
+        this.constraintLiterals = new ArrayList<>();
+        this.constraintTornadoes = new ArrayList<>();
+    }
+
+    /**
+     * Method which adds a hint constraint to the frontier
+     * @param literals the variables of the unknown neighbours of the hint
+     * @param nTornadoes the number of those neighbours which are tornadoes
+     */
+    public void addConstraint(int[] literals, int nTornadoes) {
+        constraintLiterals.add(literals);
+        constraintTornadoes.add(nTornadoes);
+        components = null;
+    }
+
+    /**
+     * Method which finds the root of a variable in the union-find forest, compressing the path on the way
+     * @param parent the union-find forest
+     * @param var variable whose root is to be found
+     * @return the root of the variable
+     */
+    private static int find(int[] parent, int var) {
+        while (parent[var] != var) {
+            parent[var] = parent[parent[var]];
+            var = parent[var];
+        }
+        return var;
+    }
+
+    /**
+     * Method which splits the constraints into connected components using a union-find over the cell variables
+     */
+    private void buildComponents() {
+        int[] parent = new int[nCells + 1];
+        for (int i = 0; i <= nCells; i++) {
+            parent[i] = i;
+        }
+        for (int[] literals : constraintLiterals) {
+            for (int i = 1; i < literals.length; i++) {
+                int a = find(parent, literals[0]);
+                int b = find(parent, literals[i]);
+                if (a != b) {
+                    parent[b] = a;
+                }
+            }
+        }
+        components = new ArrayList<>();
+        componentOf = new int[nCells + 1];
+        int[] componentOfRoot = new int[nCells + 1];
+        localVariable = new int[nCells + 1];
+        ArrayList<ArrayList<Integer>> variables = new ArrayList<>();
+        for (int i = 0; i <= nCells; i++) {
+            componentOf[i] = -1;
+            componentOfRoot[i] = -1;
+        }
+        for (int c = 0; c < constraintLiterals.size(); c++) {
+            int[] literals = constraintLiterals.get(c);
+            if (literals.length == 0) {
+                continue;
+            }
+            int root = find(parent, literals[0]);
+            if (componentOfRoot[root] < 0) {
+                componentOfRoot[root] = components.size();
+                components.add(new Component());
+                variables.add(new ArrayList<>());
+            }
+            int index = componentOfRoot[root];
+            int[] localLiterals = new int[literals.length];
+            for (int i = 0; i < literals.length; i++) {
+                if (componentOf[literals[i]] < 0) {
+                    componentOf[literals[i]] = index;
+                    variables.get(index).add(literals[i]);
+                    localVariable[literals[i]] = variables.get(index).size();
+                }
+                localLiterals[i] = localVariable[literals[i]];
+            }
+            components.get(index).constraintLiterals.add(localLiterals);
+            components.get(index).constraintTornadoes.add(constraintTornadoes.get(c));
+        }
+        for (int i = 0; i < components.size(); i++) {
+            ArrayList<Integer> componentVariables = variables.get(i);
+            components.get(i).variables = new int[componentVariables.size()];
+            for (int j = 0; j < componentVariables.size(); j++) {
+                components.get(i).variables[j] = componentVariables.get(j);
+            }
+        }
+    }
+
+    /**
+     * Simple getter
+     * @return the connected components of the frontier
+     */
+    public ArrayList<Component> getComponents() {
+        if (components == null) {
+            buildComponents();
+        }
+        return components;
+    }
+
+    /**
+     * Method which returns the component a cell belongs to
+     * @param var variable of the cell
+     * @return the index of the component of the cell, -1 if the cell is not in the frontier
+     */
+    public int getComponentOf(int var) {
+        if (components == null) {
+            buildComponents();
+        }
+        return componentOf[var];
+    }
+
+    /**
+     * Method which returns the local variable of a cell within its component
+     * @param var variable of the cell
+     * @return the local variable of the cell, 0 if the cell is not in the frontier
+     */
+    public int getLocalVariable(int var) {
+        if (components == null) {
+            buildComponents();
+        }
+        return localVariable[var];
+    }
+}
@@ -1,5 +1,3 @@
-import java.util.ArrayList;
-
 /**
  * Class representing the game instance. Holds the actual world view, separating the agent playing the game, making
  * the distinction between the agent's view and the actual world view distinct.
@@ -7,29 +5,42 @@ import java.util.ArrayList;
  */
 public class Game {
 
-    private World world;
     private Board board;
-    // list holding all of the Cell objects
-    private ArrayList<Cell> allCells;
-    // list holding the cells which have not been uncovered yet
-    private ArrayList<Cell> coveredCells;
+    // holds the length of the board
+    private int boardLength;
+    // array holding all of the Cell objects, the cell at (x, y) is at index y * boardLength + x
+    private Cell[] allCells;
+    // holds whether each cell, by index, has not been uncovered yet
+    private boolean[] coveredCells;
+    // number of cells which have not been uncovered yet and are not tornadoes. The game is won when it reaches 0
+    private int coveredSafeCells;
     // holds whether game is over
     private boolean gameOver;
     // holds whether game has been won
     private boolean gameWon;
+    // number of tornadoes of the world. Known to the agent, as it only depends on the size of the world
+    private int tornadoCount;
 
     /**
      * Class constructor
-     * @param world name of the world e.g. S1, M3, L5 etc.
+     * @param world name of the world e.g. S1, M3, L5 etc., or of a generated world e.g. G100-0.2-42
      */
     public Game(String world) {
-        this.world = World.valueOf(world);
+        this(WorldGenerator.mapOf(world));
+    }
+
+    /**
+     * Class constructor
+     * @param map the actual world view, indexed by [y][x]
+     */
+    public Game(char[][] map) {
         // this will hold the actual world view
-        this.board = new Board(this.world.map);
+        this.board = new Board(map);
         this.gameOver = false;
         this.gameWon = false;
-        this.allCells = new ArrayList<>();
-        this.coveredCells = new ArrayList<>();
+        this.boardLength = board.board.length;
+        this.allCells = new Cell[boardLength * boardLength];
+        this.coveredCells = new boolean[boardLength * boardLength];
         populateCells();
     }
 
@@ -37,11 +48,17 @@ public class Game {
      * Method which populates the allCells and coveredCells array. In the beginning all the cells are covered.
      */
     private void populateCells() {
-        for (int i = 0; i < board.board.length ; i++) {
-            for (int j = 0; j < board.board.length ; j++) {
+        for (int i = 0; i < boardLength; i++) {
+            for (int j = 0; j < boardLength; j++) {
                 Cell cell = new Cell(i, j, board.board[j][i]);
-                allCells.add(cell);
-                coveredCells.add(cell);
+                allCells[j * boardLength + i] = cell;
+                coveredCells[j * boardLength + i] = true;
+                if (cell.getHint() == 't') {
+                    tornadoCount++;
+                }
+                else {
+                    coveredSafeCells++;
+                }
             }
         }
     }
@@ -53,25 +70,30 @@ public class Game {
      * @return Cell object uncovered containing details about coordinates and hint
      */
     public Cell uncoverCell(int x, int y) {
-        for (int i = 0; i < allCells.size(); i++) {
-            if (allCells.get(i).x == x && allCells.get(i).y == y) {
-                Cell cell = allCells.get(i);
-                // remove cell from list holding the covered cells
-                coveredCells.remove(cell);
-                // if the cell uncovered is a tornado, game is over
-                if (cell.getHint() == 't') {
-                    gameOver = true;
-                }
-                // if checkGameWon returns true
-                else if (checkGameWon()) {
-                    gameOver = true;
-                    gameWon = true;
-                }
-                return cell;
+        // coordinates outside the board, return null
+        if (x < 0 || y < 0 || x >= boardLength || y >= boardLength) {
+            return null;
+        }
+        int index = y * boardLength + x;
+        Cell cell = allCells[index];
+        // if the cell uncovered is a tornado, game is over
+        if (cell.getHint() == 't') {
+            coveredCells[index] = false;
+            gameOver = true;
+        }
+        else {
+            // mark the cell as uncovered, counting it only the first time it is uncovered
+            if (coveredCells[index]) {
+                coveredCells[index] = false;
+                coveredSafeCells--;
+            }
+            // if checkGameWon returns true
+            if (checkGameWon()) {
+                gameOver = true;
+                gameWon = true;
             }
         }
-        // cell has already been uncovered, return null
-        return null;
+        return cell;
     }
 
     /**
@@ -80,19 +102,8 @@ public class Game {
      * @return true if all the remaining covered cells are tornadoes
      */
     public boolean checkGameWon() {
-        if (coveredCells.size() == 0) {
-            return true;
-        }
-        else {
-            for (int i = 0; i < coveredCells.size(); i++) {
-                Cell cell = coveredCells.get(i);
-                // if at least one covered cell is not a tornado it means game has not been won
-                if (board.board[cell.y][cell.x] != 't') {
-                    return false;
-                }
-            }
-            return true;
-        }
+        // if at least one covered cell is not a tornado it means game has not been won
+        return coveredSafeCells == 0;
     }
 
     /**
@@ -103,6 +114,14 @@ public class Game {
         return board;
     }
 
+    /**
+     * Simple getter
+     * @return the number of tornadoes of the world
+     */
+    public int getTornadoCount() {
+        return tornadoCount;
+    }
+
     /**
      * Simplge getter
      * @return boolean value of whether the game is over
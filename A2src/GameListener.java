@@ -0,0 +1,68 @@
+/**
+ * Interface of the objects which are told about the events of a game played by an agent. The agent itself never
+ * writes anything: every probe, mark, guess and board view goes through its listener, which decides whether and how
+ * the event is shown. Events carry the objects of the agent, so no string is built unless the listener needs one.
+ */
+public interface GameListener {
+
+    /**
+     * Method called when the agent has set up its board view, before the hint cells are probed
+     * @param board the agent's board view, all cells unknown
+     */
+    void onGameStart(Board board);
+
+    /**
+     * Method called when the hint cells have been probed
+     * @param board the agent's board view
+     */
+    void onHintCellsProbed(Board board);
+
+    /**
+     * Method called when a cell has been probed. The cell may turn out to be a tornado, in which case its hint is 't'
+     * @param cell the cell probed, holding the hint uncovered
+     */
+    void onProbe(Cell cell);
+
+    /**
+     * Method called when a cell has been marked as a danger
+     * @param cell the cell marked
+     */
+    void onMark(Cell cell);
+
+    /**
+     * Method called before a neighbour of a cell with hint 0 is probed as part of the cascade
+     * @param cell the neighbour about to be probed
+     */
+    void onCascade(Cell cell);
+
+    /**
+     * Method called when the agent could not deduce a move and is about to guess
+     * @param type the type of the agent guessing e.g. SPX, SATX, CSPX or HYBX
+     * @param probability the probability of the cell guessed containing a tornado, NaN if the cell is picked randomly
+     */
+    void onGuess(String type, double probability);
+
+    /**
+     * Method called before the agent looks for its next move, once the cascade is over
+     */
+    void onMoveStart();
+
+    /**
+     * Method called after the agent has made a move
+     * @param board the agent's board view
+     */
+    void onMoveEnd(Board board);
+
+    /**
+     * Method called when the agent or one of its solvers has failed, e.g. when the knowledge base turns out to be
+     * contradictory. The agent carries on with the move it can make without the solver
+     * @param e the exception raised
+     */
+    void onError(Exception e);
+
+    /**
+     * Method called when the game is over
+     * @param won whether the game has been won
+     */
+    void onGameEnd(boolean won);
+}
@@ -0,0 +1,165 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Listener which records the moves of a game into a compact binary move log, and passes every event on to another
+ * listener. The log starts with a header holding the world, the agent type and the seed of the game, followed by one
+ * record per probe, mark and guess and a last record for the end of the game. Every record starts with its type and
+ * the time elapsed since the previous record, in nanoseconds. Numbers are written as variable length integers, so a
+ * probe on a small board takes a handful of bytes. The log can be played back with GameReplay.
+ */
+public class GameRecorder implements GameListener {
+
+    // first bytes of every move log, "TSML"
+    public static final int MAGIC = 0x54534D4C;
+    // version of the format of the move log
+    public static final int VERSION = 1;
+    // types of the records
+    public static final byte PROBE = 'P';
+    public static final byte MARK = 'M';
+    public static final byte GUESS = 'G';
+    public static final byte END = 'E';
+
+    // the stream the log is written to
+    private DataOutputStream out;
+    // listener the events are passed on to
+    private GameListener next;
+    // time of the previous record, or of the start of the game before the first record
+    private long lastTime;
+
+    /**
+     * Class constructor. Writes the header of the log
+     * @param stream the stream the log is written to, closed when the game is over
+     * @param world name of the world e.g. S1, G100-0.2-42
+     * @param agentType i.e. RPX, SPX, SATX or CSPX
+     * @param seed the seed of the random moves of the agent
+     * @param next listener the events are passed on to
+     */
+    public GameRecorder(OutputStream stream, String world, String agentType, long seed, GameListener next) {
+        this.out = new DataOutputStream(new BufferedOutputStream(stream));
+        this.next = next;
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(world);
+            out.writeUTF(agentType);
+            out.writeLong(seed);
+        } catch (IOException e) {
+            next.onError(e);
+        }
+        this.lastTime = System.nanoTime();
+    }
+
+    /**
+     * Method which writes a non-negative number as a variable length integer, seven bits per byte
+     * @param out the stream the number is written to
+     * @param value the number
+     */
+    public static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Method which writes the start of a record i.e. its type and the time elapsed since the previous record
+     * @param type type of the record
+     */
+    private void writeRecord(byte type) throws IOException {
+        long now = System.nanoTime();
+        out.writeByte(type);
+        writeVarLong(out, now - lastTime);
+        lastTime = now;
+    }
+
+    /**
+     * Method which writes a record about a cell
+     * @param type type of the record
+     * @param cell the cell of the record
+     */
+    private void writeCell(byte type, Cell cell) throws IOException {
+        writeRecord(type);
+        writeVarLong(out, cell.x);
+        writeVarLong(out, cell.y);
+    }
+
+    @Override
+    public void onGameStart(Board board) {
+        // the time the agent took to set itself up is not part of its first move
+        lastTime = System.nanoTime();
+        next.onGameStart(board);
+    }
+
+    @Override
+    public void onHintCellsProbed(Board board) {
+        next.onHintCellsProbed(board);
+    }
+
+    @Override
+    public void onProbe(Cell cell) {
+        try {
+            writeCell(PROBE, cell);
+            out.writeByte(cell.getHint());
+        } catch (IOException e) {
+            next.onError(e);
+        }
+        next.onProbe(cell);
+    }
+
+    @Override
+    public void onMark(Cell cell) {
+        try {
+            writeCell(MARK, cell);
+        } catch (IOException e) {
+            next.onError(e);
+        }
+        next.onMark(cell);
+    }
+
+    @Override
+    public void onCascade(Cell cell) {
+        next.onCascade(cell);
+    }
+
+    @Override
+    public void onGuess(String type, double probability) {
+        try {
+            writeRecord(GUESS);
+            out.writeFloat((float) probability);
+        } catch (IOException e) {
+            next.onError(e);
+        }
+        next.onGuess(type, probability);
+    }
+
+    @Override
+    public void onMoveStart() {
+        next.onMoveStart();
+    }
+
+    @Override
+    public void onMoveEnd(Board board) {
+        next.onMoveEnd(board);
+    }
+
+    @Override
+    public void onError(Exception e) {
+        next.onError(e);
+    }
+
+    @Override
+    public void onGameEnd(boolean won) {
+        try {
+            writeRecord(END);
+            out.writeBoolean(won);
+            out.close();
+        } catch (IOException e) {
+            next.onError(e);
+        }
+        next.onGameEnd(won);
+    }
+}
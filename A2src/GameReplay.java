@@ -0,0 +1,135 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Class with a main method that plays back move logs written by GameRecorder. The moves of the log are made again on
+ * a new Game of the same world, without any agent or solver, and the hints uncovered and the result of the game are
+ * checked against the log. The times of the log show how long the agent thought before every move.
+ */
+public class GameReplay {
+
+    /**
+     * Method which reads a number written as a variable length integer by GameRecorder
+     * @param in the stream the number is read from
+     * @return the number
+     */
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Method which plays back a move log and prints what happened
+     * @param file path of the move log
+     * @return true if the game played back matches the log
+     */
+    public static boolean replay(String file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != GameRecorder.MAGIC || in.readUnsignedByte() != GameRecorder.VERSION) {
+                System.out.println(file + ": not a move log");
+                return false;
+            }
+            String world = in.readUTF();
+            String agentType = in.readUTF();
+            long seed = in.readLong();
+            System.out.println("Replay of " + file + " World: " + world + " Agent: " + agentType + " Seed: " + seed);
+
+            long start = System.nanoTime();
+            Game game = new Game(world);
+            int nProbes = 0;
+            int nMarks = 0;
+            int nGuesses = 0;
+            long recordedTime = 0;
+            long slowestTime = -1;
+            String slowestMove = "";
+            boolean matches = true;
+            boolean ended = false;
+            boolean won = false;
+            while (!ended) {
+                byte type = in.readByte();
+                long elapsed = readVarLong(in);
+                recordedTime += elapsed;
+                String move = null;
+                switch (type) {
+                    case GameRecorder.PROBE: {
+                        int x = (int) readVarLong(in);
+                        int y = (int) readVarLong(in);
+                        char hint = (char) in.readUnsignedByte();
+                        Cell cell = game.uncoverCell(x, y);
+                        if (cell == null || cell.getHint() != hint) {
+                            System.out.println("\tprobe " + x + " " + y + " uncovered a different hint than logged");
+                            matches = false;
+                        }
+                        nProbes++;
+                        move = "probe " + x + " " + y;
+                        break;
+                    }
+                    case GameRecorder.MARK: {
+                        int x = (int) readVarLong(in);
+                        int y = (int) readVarLong(in);
+                        nMarks++;
+                        move = "mark " + x + " " + y;
+                        break;
+                    }
+                    case GameRecorder.GUESS:
+                        in.readFloat();
+                        nGuesses++;
+                        move = "guess";
+                        break;
+                    case GameRecorder.END:
+                        won = in.readBoolean();
+                        ended = true;
+                        break;
+                    default:
+                        System.out.println("\tunknown record " + type);
+                        return false;
+                }
+                if (move != null && elapsed > slowestTime) {
+                    slowestTime = elapsed;
+                    slowestMove = move + " (move " + (nProbes + nMarks + nGuesses) + ")";
+                }
+            }
+            long replayTime = System.nanoTime() - start;
+            if (game.isGameWon() != won || (!won && !game.isGameOver())) {
+                System.out.println("\tthe game played back does not end as logged");
+                matches = false;
+            }
+            System.out.println("\t" + nProbes + " probes, " + nMarks + " marks, " + nGuesses + " guesses, "
+                    + (won ? "game won" : "game lost"));
+            System.out.println("\trecorded game time: " + (recordedTime / 1000) + " us, replay time: "
+                    + (replayTime / 1000) + " us");
+            System.out.println("\tslowest move: " + slowestMove + " after " + (slowestTime / 1000) + " us");
+            System.out.println("\t" + (matches ? "matches the log" : "does not match the log"));
+            return matches;
+        } catch (EOFException e) {
+            System.out.println(file + ": move log ends before the end of the game");
+        } catch (IOException e) {
+            System.out.println("IO Exception: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Main method of the class
+     * @param args the paths of the move logs to be played back
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Invalid arguments. Usage: java GameReplay <log> [<log> ...]");
+            return;
+        }
+        for (String file : args) {
+            replay(file);
+        }
+    }
+}
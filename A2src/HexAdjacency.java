@@ -0,0 +1,118 @@
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class holding the neighbours of every cell of a hexagonal board of a given size, in compressed sparse row form: the
+ * neighbours of the cell with index i = y * boardLength + x are stored in neighbours, from position offsets[i] up to
+ * offsets[i + 1]. The tables are immutable and only depend on the size of the board, so a single instance per size is
+ * cached and shared by every agent playing on a board of that size. The cache only holds weak references, so the
+ * table of a size is dropped once no agent uses it any more, and playing boards of many sizes does not keep all their
+ * tables alive. Iterating over the neighbours of a cell does not allocate anything.
+ */
+public final class HexAdjacency {
+
+    // offsets of the six neighbours of a cell, in the order in which they are stored
+    private static final int[] DX = {-1, -1, 0, 1, 1, 0};
+    private static final int[] DY = {-1, 0, -1, 1, 0, 1};
+
+    // holds the table of each board size in use, weakly
+    private static final ConcurrentHashMap<Integer, WeakReference<HexAdjacency>> CACHE = new ConcurrentHashMap<>();
+
+    // holds the length of the board
+    private final int boardLength;
+    // position in neighbours of the first neighbour of each cell, plus the total number of neighbours at the end
+    private final int[] offsets;
+    // the indices of the neighbours of all the cells
+    private final int[] neighbours;
+
+    /**
+     * Class constructor. Works out the neighbours of every cell of the board
+     * @param boardLength length of the board
+     */
+    private HexAdjacency(int boardLength) {
+        this.boardLength = boardLength;
+        int nCells = boardLength * boardLength;
+        this.offsets = new int[nCells + 1];
+        int[] buffer = new int[nCells * DX.length];
+        int size = 0;
+        for (int y = 0; y < boardLength; y++) {
+            for (int x = 0; x < boardLength; x++) {
+                offsets[y * boardLength + x] = size;
+                for (int d = 0; d < DX.length; d++) {
+                    int nx = x + DX[d];
+                    int ny = y + DY[d];
+                    if (nx >= 0 && ny >= 0 && nx < boardLength && ny < boardLength) {
+                        buffer[size] = ny * boardLength + nx;
+                        size++;
+                    }
+                }
+            }
+        }
+        offsets[nCells] = size;
+        this.neighbours = new int[size];
+        System.arraycopy(buffer, 0, neighbours, 0, size);
+    }
+
+    /**
+     * Method which returns the table of the board size passed as a parameter, building it if no table of that size
+     * is in use. Two threads may build the same table at once, in which case the one cached last is shared from then
+     * on.
+     * @param boardLength length of the board
+     * @return the shared table for that board size
+     */
+    public static HexAdjacency forBoard(int boardLength) {
+        WeakReference<HexAdjacency> reference = CACHE.get(boardLength);
+        HexAdjacency table = reference == null ? null : reference.get();
+        if (table == null) {
+            table = new HexAdjacency(boardLength);
+            // the entries of the tables which have been dropped are removed along the way
+            CACHE.values().removeIf(cached -> cached.get() == null);
+            CACHE.put(boardLength, new WeakReference<>(table));
+        }
+        return table;
+    }
+
+    /**
+     * Method which returns the position of the first neighbour of a cell
+     * @param index of the cell
+     * @return the position in the neighbours table of the first neighbour of the cell
+     */
+    public int start(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Method which returns the position after the last neighbour of a cell
+     * @param index of the cell
+     * @return the position in the neighbours table after the last neighbour of the cell
+     */
+    public int end(int index) {
+        return offsets[index + 1];
+    }
+
+    /**
+     * Method which returns the neighbour at a position of the table
+     * @param position between start(index) and end(index) - 1 for the neighbours of the cell index
+     * @return the index of the neighbour
+     */
+    public int neighbour(int position) {
+        return neighbours[position];
+    }
+
+    /**
+     * Method which returns the number of neighbours of a cell
+     * @param index of the cell
+     * @return the number of neighbours of the cell, at most 6
+     */
+    public int degree(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Simple getter
+     * @return the length of the board
+     */
+    public int getBoardLength() {
+        return boardLength;
+    }
+}
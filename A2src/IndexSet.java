@@ -0,0 +1,93 @@
+/**
+ * Class representing a set of cell indices between 0 and a fixed capacity. Adding, removing and checking an index are
+ * constant time: the members are kept packed in an array, and the position of every index in that array is known, so
+ * a member is removed by moving the last member into its place. The order of the members is therefore not kept.
+ */
+public class IndexSet {
+
+    // the members of the set, packed at the start of the array
+    private int[] members;
+    // the position of each index in the members array, -1 if the index is not a member
+    private int[] positions;
+    // number of members of the set
+    private int size;
+
+    /**
+     * Class constructor. Creates an empty set
+     * @param capacity the indices of the set range from 0 to capacity - 1
+     */
+    public IndexSet(int capacity) {
+        this.members = new int[capacity];
+        this.positions = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            positions[i] = -1;
+        }
+        this.size = 0;
+    }
+
+    /**
+     * Method which adds an index to the set, if it is not a member already
+     * @param index to be added
+     */
+    public void add(int index) {
+        if (positions[index] >= 0) {
+            return;
+        }
+        members[size] = index;
+        positions[index] = size;
+        size++;
+    }
+
+    /**
+     * Method which removes an index from the set, if it is a member
+     * @param index to be removed
+     */
+    public void remove(int index) {
+        int position = positions[index];
+        if (position < 0) {
+            return;
+        }
+        size--;
+        int last = members[size];
+        members[position] = last;
+        positions[last] = position;
+        positions[index] = -1;
+    }
+
+    /**
+     * Method which removes and returns the last member of the set. Used to drain the set as a work list
+     * @return the member removed
+     */
+    public int pop() {
+        size--;
+        int last = members[size];
+        positions[last] = -1;
+        return last;
+    }
+
+    /**
+     * Method which returns whether an index is a member of the set
+     * @param index to be checked
+     * @return true if the index is a member
+     */
+    public boolean contains(int index) {
+        return positions[index] >= 0;
+    }
+
+    /**
+     * Method which returns the member at a position of the set. Used to iterate over the members
+     * @param position between 0 and size - 1
+     * @return the member at that position
+     */
+    public int get(int position) {
+        return members[position];
+    }
+
+    /**
+     * Simple getter
+     * @return the number of members of the set
+     */
+    public int size() {
+        return size;
+    }
+}
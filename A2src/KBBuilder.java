@@ -0,0 +1,323 @@
+import java.util.ArrayList;
+import org.sat4j.core.VecInt;
+import org.sat4j.pb.IPBSolver;
+import org.sat4j.pb.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.TimeoutException;
+
+/**
+ * Class which builds the knowledge base straight into the solver, without going through strings. The variable of the
+ * cell at coordinates x and y is y * boardLength + x + 1, so every cell of a board of any size has its own variable
+ * and the variable of a cell never has to be looked up. Auxiliary variables e.g. counter or activation variables come
+ * after the variables of the cells.
+ */
+public class KBBuilder {
+
+    // holds the length of the board
+    private int boardLength;
+    // encoding of the hint constraints i.e. PB, SEQ or TEMPLATE
+    private String encoding;
+    // the solver the knowledge base is written into
+    private IPBSolver solver;
+    // used to encode the hints into CNF when the SEQ encoding is used, also hands out the auxiliary variables
+    private CardinalityEncoder encoder;
+    // holds whether the variable of each cell appears in the knowledge base, indexed by variable
+    private boolean[] constrained;
+    // holds the activation literals of the guarded constraints that are still active
+    private VecInt activeLiterals;
+    // number of calls made to the solver so far
+    private int satCalls;
+
+    /**
+     * Class constructor
+     * @param boardLength length of the board, used to reserve a variable for every cell
+     * @param encoding encoding of the hint constraints, PB for native constraints, TEMPLATE for precomputed clauses
+     * and any other for a sequential counter
+     */
+    public KBBuilder(int boardLength, String encoding) {
+        this(boardLength, boardLength * boardLength, encoding);
+    }
+
+    /**
+     * Class constructor
+     * @param boardLength length of the board
+     * @param nVariables number of variables to reserve for the cells
+     * @param encoding encoding of the hint constraints, PB for native constraints, TEMPLATE for precomputed clauses
+     * and any other for a sequential counter
+     */
+    private KBBuilder(int boardLength, int nVariables, String encoding) {
+        this.boardLength = boardLength;
+        this.encoding = encoding;
+        this.encoder = new CardinalityEncoder(nVariables + 1);
+        this.constrained = new boolean[nVariables + 1];
+        this.activeLiterals = new VecInt();
+        this.solver = SolverFactory.newDefault();
+        this.solver.newVar(nVariables);
+    }
+
+    /**
+     * Method which creates a knowledge base over a part of the board, whose cells are numbered locally from 1 rather
+     * than by their coordinates, e.g. a component of the frontier.
+     * @param nVariables number of cells in the knowledge base
+     * @param encoding encoding of the hint constraints, PB for native constraints, TEMPLATE for precomputed clauses
+     * and any other for a sequential counter
+     * @return the empty knowledge base
+     */
+    public static KBBuilder withLocalVariables(int nVariables, String encoding) {
+        return new KBBuilder(0, nVariables, encoding);
+    }
+
+    /**
+     * Method which returns the variable of the cell at the coordinates passed as parameters
+     * @param x coordinate
+     * @param y coordinate
+     * @param boardLength length of the board
+     * @return the DIMACS variable of the cell
+     */
+    public static int variable(int x, int y, int boardLength) {
+        return y * boardLength + x + 1;
+    }
+
+    /**
+     * Method which returns the variable of the cell at the coordinates passed as parameters
+     * @param x coordinate
+     * @param y coordinate
+     * @return the DIMACS variable of the cell
+     */
+    public int variable(int x, int y) {
+        return variable(x, y, boardLength);
+    }
+
+    /**
+     * Method which adds a clause to the knowledge base
+     * @param clause the DIMACS literals of the clause
+     */
+    public void addClause(int[] clause) throws ContradictionException {
+        for (int literal : clause) {
+            int var = Math.abs(literal);
+            if (var < constrained.length) {
+                constrained[var] = true;
+            } else {
+                if (var > solver.nVars()) {
+                    solver.newVar(var);
+                }
+                // auxiliary variables of the clause, e.g. Tseitin variables, are not handed out again by the encoder
+                encoder.reserve(var);
+            }
+        }
+        solver.addClause(new VecInt(clause));
+    }
+
+    /**
+     * Method which adds to the knowledge base that exactly k of the literals passed as a parameter are true
+     * @param literals the literals of the cells
+     * @param k the number of literals which must be true
+     */
+    public void addExactly(int[] literals, int k) throws ContradictionException {
+        addExactly(literals, k, 0);
+    }
+
+    /**
+     * Method which adds to the knowledge base that exactly k of the literals passed as a parameter are true, whenever
+     * the activation literal is true. An activation literal of 0 means that the constraint always holds.
+     * @param literals the literals of the cells
+     * @param k the number of literals which must be true
+     * @param activation the activation literal guarding the constraint, or 0
+     */
+    private void addExactly(int[] literals, int k, int activation) throws ContradictionException {
+        int n = literals.length;
+        for (int literal : literals) {
+            constrained[Math.abs(literal)] = true;
+        }
+        if (encoding.equals("PB")) {
+            if (activation == 0) {
+                solver.addExactly(new VecInt(literals), k);
+                return;
+            }
+            // sum + k * ~a >= k and sum + (n - k) * a <= n, which is exactly k whenever a is true
+            int[] guardedLiterals = new int[n + 1];
+            int[] coefficients = new int[n + 1];
+            System.arraycopy(literals, 0, guardedLiterals, 0, n);
+            for (int i = 0; i < n; i++) {
+                coefficients[i] = 1;
+            }
+            guardedLiterals[n] = -activation;
+            coefficients[n] = k;
+            solver.addAtLeast(new VecInt(guardedLiterals), new VecInt(coefficients), k);
+            guardedLiterals[n] = activation;
+            coefficients[n] = n - k;
+            solver.addAtMost(new VecInt(guardedLiterals), new VecInt(coefficients), n);
+        } else if (encoding.equals("TEMPLATE") && n <= ClauseTemplates.SLOTS) {
+            // the literals fill the first n slots. There is no auxiliary variable, so every clause is guarded. Longer
+            // constraints, e.g. the number of tornadoes of the board, fall back to the sequential counter
+            for (int[] slotClause : ClauseTemplates.exactly(k, (1 << n) - 1)) {
+                solver.addClause(new VecInt(ClauseTemplates.instantiate(slotClause, literals, -activation)));
+            }
+        } else {
+            ArrayList<int[]> clauses = new ArrayList<>();
+            encoder.exactly(literals, k, clauses);
+            solver.newVar(encoder.getNextVar() - 1);
+            for (int[] clause : clauses) {
+                // the counter only defines auxiliary variables, so only the clauses asserting the count are guarded
+                if (activation != 0 && clause.length <= 1) {
+                    int[] guardedClause = new int[clause.length + 1];
+                    System.arraycopy(clause, 0, guardedClause, 0, clause.length);
+                    guardedClause[clause.length] = -activation;
+                    solver.addClause(new VecInt(guardedClause));
+                } else {
+                    solver.addClause(new VecInt(clause));
+                }
+            }
+        }
+    }
+
+    /**
+     * Method which adds the constraint of a hint to the knowledge base by copying its precomputed clause template, as
+     * used by the TEMPLATE encoding
+     * @param hint the hint of the cell
+     * @param marked the number of neighbours of the cell marked as tornadoes
+     * @param mask the unknown neighbour slots of the cell, one bit per slot
+     * @param slotVariables the variable of the neighbour in each slot
+     */
+    public void addHint(int hint, int marked, int mask, int[] slotVariables) throws ContradictionException {
+        for (int slot = 0; slot < slotVariables.length; slot++) {
+            if ((mask & (1 << slot)) != 0) {
+                constrained[slotVariables[slot]] = true;
+            }
+        }
+        for (int[] slotClause : ClauseTemplates.get(hint, marked, mask)) {
+            solver.addClause(new VecInt(ClauseTemplates.instantiate(slotClause, slotVariables, 0)));
+        }
+    }
+
+    /**
+     * Method which adds a constraint that can later be retired. It holds exactly k of the literals passed as a
+     * parameter are true as long as it is active.
+     * @param literals the literals of the cells
+     * @param k the number of literals which must be true
+     * @return the activation literal of the constraint, to be passed to retire
+     */
+    public int addRetractableExactly(int[] literals, int k) throws ContradictionException {
+        int activation = encoder.newVar();
+        solver.newVar(activation);
+        addExactly(literals, k, activation);
+        activeLiterals.push(activation);
+        return activation;
+    }
+
+    /**
+     * Method which retires a constraint added with addRetractableExactly, by setting its activation literal to false.
+     * This satisfies the guarded constraints so that the solver can drop them.
+     * @param activation the activation literal of the constraint
+     */
+    public void retire(int activation) throws ContradictionException {
+        activeLiterals.remove(activation);
+        solver.addClause(new VecInt(new int[]{-activation}));
+    }
+
+    /**
+     * Method which reserves a new auxiliary variable
+     * @return the id of the variable
+     */
+    public int newVar() {
+        int var = encoder.newVar();
+        solver.newVar(var);
+        return var;
+    }
+
+    /**
+     * Method which checks whether the knowledge base, with all the active constraints, is satisfiable when the
+     * literal passed as a parameter is true.
+     * @param literal the literal to be assumed
+     * @return true if the knowledge base is satisfiable
+     */
+    public boolean isSatisfiable(int literal) throws TimeoutException {
+        VecInt assumptions = new VecInt(activeLiterals.size() + 1);
+        activeLiterals.copyTo(assumptions);
+        assumptions.push(literal);
+        satCalls++;
+        return solver.isSatisfiable(assumptions);
+    }
+
+    /**
+     * Method which works out which of the variables passed as a parameter have the same value in every model of the
+     * knowledge base, i.e. its backbone. Every model found shows that the variables take the values they have in it,
+     * so a variable is only checked if no model found so far has given it both values. The variables found to be in
+     * the backbone are assumed in the following checks.
+     * @param candidates the variables of the cells to be checked
+     * @return for each candidate, the candidate if it is true in every model, minus the candidate if it is false in
+     * every model, 0 otherwise. All 0 if the knowledge base is not satisfiable
+     */
+    public int[] backbone(int[] candidates) throws TimeoutException {
+        int[] backbone = new int[candidates.length];
+        // holds whether each candidate has been true, and false, in a model found so far
+        boolean[] seenTrue = new boolean[candidates.length];
+        boolean[] seenFalse = new boolean[candidates.length];
+        VecInt assumptions = new VecInt(activeLiterals.size() + candidates.length + 1);
+        activeLiterals.copyTo(assumptions);
+        satCalls++;
+        if (!solver.isSatisfiable(assumptions)) {
+            return backbone;
+        }
+        recordModel(candidates, seenTrue, seenFalse);
+        for (int i = 0; i < candidates.length; i++) {
+            if (seenTrue[i] && seenFalse[i]) {
+                continue;
+            }
+            // look for a model giving the candidate the value it has not had yet
+            int literal = seenTrue[i] ? -candidates[i] : candidates[i];
+            assumptions.push(literal);
+            satCalls++;
+            boolean satisfiable = solver.isSatisfiable(assumptions);
+            assumptions.pop();
+            if (satisfiable) {
+                recordModel(candidates, seenTrue, seenFalse);
+            } else {
+                backbone[i] = -literal;
+                assumptions.push(-literal);
+            }
+        }
+        return backbone;
+    }
+
+    /**
+     * Method which records the value of each candidate in the model just found by the solver
+     * @param candidates the variables of the cells
+     * @param seenTrue holds whether each candidate has been true in a model
+     * @param seenFalse holds whether each candidate has been false in a model
+     */
+    private void recordModel(int[] candidates, boolean[] seenTrue, boolean[] seenFalse) {
+        for (int i = 0; i < candidates.length; i++) {
+            if (solver.model(candidates[i])) {
+                seenTrue[i] = true;
+            } else {
+                seenFalse[i] = true;
+            }
+        }
+    }
+
+    /**
+     * Method which returns whether the variable passed as a parameter appears in the knowledge base
+     * @param var variable of a cell
+     * @return true if the variable appears in at least one constraint
+     */
+    public boolean isConstrained(int var) {
+        return constrained[var];
+    }
+
+    /**
+     * Simple getter
+     * @return the number of calls made to the solver so far
+     */
+    public int getSatCalls() {
+        return satCalls;
+    }
+
+    /**
+     * Simple getter
+     * @return the solver holding the knowledge base
+     */
+    public IPBSolver getSolver() {
+        return solver;
+    }
+}
@@ -0,0 +1,245 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class which makes deductions on a component of the frontier by linear algebra. Every hint is the equation "the
+ * unknown neighbours sum to the hint minus the marked neighbours", over cells which are 0 or 1. The equations are
+ * row reduced by integer Gaussian elimination, on sparse rows, and each reduced row is then checked on its own: a cell
+ * is forced if giving it one of the two values puts the right hand side out of reach of the other cells of the row.
+ * This finds, for instance, the cells a pair of overlapping hints decides, without any search. Every row stays a
+ * linear combination of the hints, so every deduction is sound, but not every cell SAT would prove is found.
+ */
+public class LinearSolver {
+
+    /**
+     * Class representing a sparse equation over the variables of the component
+     */
+    private static class Row {
+        // the variables with a non zero coefficient, in increasing order
+        int[] variables;
+        // the coefficient of each of those variables
+        long[] coefficients;
+        // the right hand side of the equation
+        long constant;
+
+        /**
+         * Method which returns the coefficient of a variable in the row
+         * @param var the variable
+         * @return the coefficient, 0 if the variable is not in the row
+         */
+        long coefficientOf(int var) {
+            int low = 0;
+            int high = variables.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (variables[middle] < var) {
+                    low = middle + 1;
+                } else if (variables[middle] > var) {
+                    high = middle - 1;
+                } else {
+                    return coefficients[middle];
+                }
+            }
+            return 0;
+        }
+    }
+
+    // number of variables i.e. cells of the component, numbered from 1
+    private int n;
+    // the equations of the component
+    private ArrayList<Row> rows;
+    // value of each variable: 1 tornado, -1 safe, 0 unknown
+    private int[] value;
+
+    /**
+     * Class constructor
+     * @param component the component of the frontier to be solved
+     */
+    public LinearSolver(Frontier.Component component) {
+        this.n = component.variables.length;
+        this.rows = new ArrayList<>();
+        this.value = new int[n + 1];
+        for (int c = 0; c < component.constraintLiterals.size(); c++) {
+            int[] literals = component.constraintLiterals.get(c).clone();
+            Arrays.sort(literals);
+            Row row = new Row();
+            row.variables = literals;
+            row.coefficients = new long[literals.length];
+            Arrays.fill(row.coefficients, 1);
+            row.constant = component.constraintTornadoes.get(c);
+            rows.add(row);
+        }
+    }
+
+    /**
+     * Method which row reduces the equations and works out the cells they force
+     * @return for each variable, indexed from 1, 1 if it is forced to be a tornado, -1 if it is forced to be safe, 0
+     * otherwise
+     */
+    public int[] solve() {
+        try {
+            eliminate();
+        } catch (ArithmeticException e) {
+            // the coefficients have grown too large. The rows reduced so far are still implied by the hints
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Row row : rows) {
+                if (deduce(row)) {
+                    changed = true;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Method which brings the rows into reduced row echelon form. The pivot of each column is the row with the
+     * fewest variables, which keeps the rows sparse.
+     */
+    private void eliminate() {
+        int rank = 0;
+        for (int var = 1; var <= n && rank < rows.size(); var++) {
+            int pivot = -1;
+            for (int i = rank; i < rows.size(); i++) {
+                if (rows.get(i).coefficientOf(var) != 0
+                        && (pivot < 0 || rows.get(i).variables.length < rows.get(pivot).variables.length)) {
+                    pivot = i;
+                }
+            }
+            if (pivot < 0) {
+                continue;
+            }
+            Row pivotRow = rows.get(pivot);
+            rows.set(pivot, rows.get(rank));
+            rows.set(rank, pivotRow);
+            for (int i = 0; i < rows.size(); i++) {
+                if (i != rank && rows.get(i).coefficientOf(var) != 0) {
+                    rows.set(i, cancel(rows.get(i), pivotRow, var));
+                }
+            }
+            rank++;
+        }
+    }
+
+    /**
+     * Method which removes a variable from a row by subtracting a multiple of the pivot row, without fractions. The
+     * result is divided by the greatest common divisor of its coefficients.
+     * @param row the row the variable is removed from
+     * @param pivotRow the row of the pivot of the variable
+     * @param var the variable
+     * @return the new row
+     */
+    private static Row cancel(Row row, Row pivotRow, int var) {
+        long a = pivotRow.coefficientOf(var);
+        long b = row.coefficientOf(var);
+        // row * a - pivotRow * b, merging the sorted variables of both rows
+        int[] variables = new int[row.variables.length + pivotRow.variables.length];
+        long[] coefficients = new long[variables.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < row.variables.length || j < pivotRow.variables.length) {
+            int next;
+            long coefficient;
+            if (j >= pivotRow.variables.length
+                    || (i < row.variables.length && row.variables[i] < pivotRow.variables[j])) {
+                next = row.variables[i];
+                coefficient = Math.multiplyExact(row.coefficients[i], a);
+                i++;
+            } else if (i >= row.variables.length || pivotRow.variables[j] < row.variables[i]) {
+                next = pivotRow.variables[j];
+                coefficient = -Math.multiplyExact(pivotRow.coefficients[j], b);
+                j++;
+            } else {
+                next = row.variables[i];
+                coefficient = Math.subtractExact(Math.multiplyExact(row.coefficients[i], a),
+                        Math.multiplyExact(pivotRow.coefficients[j], b));
+                i++;
+                j++;
+            }
+            if (coefficient != 0) {
+                variables[size] = next;
+                coefficients[size] = coefficient;
+                size++;
+            }
+        }
+        long constant = Math.subtractExact(Math.multiplyExact(row.constant, a),
+                Math.multiplyExact(pivotRow.constant, b));
+        long divisor = Math.abs(constant);
+        for (int k = 0; k < size; k++) {
+            divisor = gcd(divisor, Math.abs(coefficients[k]));
+        }
+        Row result = new Row();
+        result.variables = Arrays.copyOf(variables, size);
+        result.coefficients = Arrays.copyOf(coefficients, size);
+        result.constant = constant;
+        if (divisor > 1) {
+            for (int k = 0; k < size; k++) {
+                result.coefficients[k] /= divisor;
+            }
+            result.constant /= divisor;
+        }
+        return result;
+    }
+
+    /**
+     * Method which returns the greatest common divisor of two non negative numbers
+     * @param a first number
+     * @param b second number
+     * @return the greatest common divisor, the other number if one of them is 0
+     */
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long r = a % b;
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+
+    /**
+     * Method which works out the cells forced by a single row, given the cells already forced. Setting a cell to 1,
+     * or to 0, narrows the range of values the row can take; if the right hand side falls out of that range, the
+     * cell must take the other value.
+     * @param row the row
+     * @return true if a new cell has been forced, in which case the other cells of the row are checked on the next
+     * pass
+     */
+    private boolean deduce(Row row) {
+        long constant = row.constant;
+        // the smallest and largest values the free cells of the row can add up to
+        long min = 0;
+        long max = 0;
+        for (int k = 0; k < row.variables.length; k++) {
+            long coefficient = row.coefficients[k];
+            if (value[row.variables[k]] > 0) {
+                constant -= coefficient;
+            } else if (value[row.variables[k]] == 0) {
+                min += Math.min(coefficient, 0);
+                max += Math.max(coefficient, 0);
+            }
+        }
+        for (int k = 0; k < row.variables.length; k++) {
+            int var = row.variables[k];
+            if (value[var] != 0) {
+                continue;
+            }
+            long coefficient = row.coefficients[k];
+            // range of the row when the cell is a tornado, and when it is safe
+            long tornadoMin = min + Math.max(coefficient, 0);
+            long tornadoMax = max + Math.min(coefficient, 0);
+            long safeMin = min - Math.min(coefficient, 0);
+            long safeMax = max - Math.max(coefficient, 0);
+            boolean canBeTornado = constant >= tornadoMin && constant <= tornadoMax;
+            boolean canBeSafe = constant >= safeMin && constant <= safeMax;
+            if (canBeTornado != canBeSafe) {
+                // the range of the row is worked out again with the new value on the next pass
+                value[var] = canBeTornado ? 1 : -1;
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,304 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class holding the metrics recorded while an agent plays, e.g. how long each phase of a SAT move took or how many
+ * clauses its knowledge base had. Every metric is a histogram of the values recorded under its name. The names of the
+ * latencies end in ".ns", as they are in nanoseconds. The metrics of several games can be merged, and exported as CSV
+ * or JSON.
+ *
+ * The histogram of a metric recorded on every move can be resolved once with histogram and kept, so that recording a
+ * value neither builds its name nor looks it up. Disabled metrics record nothing: every histogram they hand out
+ * discards its values, so an agent whose metrics are not exported spends no time on them.
+ */
+public class Metrics {
+
+    /**
+     * Class representing the histogram of the values of a metric. The values are counted in buckets whose bounds are
+     * powers of two, so the percentiles are only known up to a factor of two, but recording a value is constant time
+     * and the histogram has a fixed size.
+     */
+    public static class Histogram {
+        // number of values recorded
+        private long count;
+        // sum, smallest and largest of the values recorded
+        private long sum;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        // number of values recorded in each bucket. Bucket i holds the values v with 2^(i-1) <= v < 2^i, bucket 0 the
+        // values up to 0
+        private long[] buckets = new long[65];
+
+        /**
+         * Method which records a value
+         * @param value to be recorded
+         */
+        public void add(long value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            buckets[value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value)]++;
+        }
+
+        /**
+         * Method which adds the values of another histogram to this one
+         * @param other histogram to be merged
+         */
+        public void merge(Histogram other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] += other.buckets[i];
+            }
+        }
+
+        /**
+         * Method which estimates a percentile of the values, as the upper bound of the bucket it falls in
+         * @param fraction between 0 and 1 e.g. 0.99 for the 99th percentile
+         * @return the estimate, never above the largest value recorded, 0 if there is none
+         */
+        public long percentile(double fraction) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(fraction * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    long bound = i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                    return Math.min(bound, max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Simple getter
+         * @return the number of values recorded
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Simple getter
+         * @return the sum of the values recorded
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Simple getter
+         * @return the smallest value recorded, 0 if there is none
+         */
+        public long getMin() {
+            return count == 0 ? 0 : min;
+        }
+
+        /**
+         * Simple getter
+         * @return the largest value recorded, 0 if there is none
+         */
+        public long getMax() {
+            return count == 0 ? 0 : max;
+        }
+
+        /**
+         * Method which returns the mean of the values recorded
+         * @return the mean, 0 if there is no value
+         */
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+    }
+
+    /**
+     * Class representing the histogram handed out by disabled metrics, which discards every value
+     */
+    private static class DiscardedHistogram extends Histogram {
+
+        @Override
+        public void add(long value) {
+        }
+    }
+
+    // histogram handed out by disabled metrics. It holds no value, so it is shared by all of them
+    private static final Histogram DISCARDED = new DiscardedHistogram();
+
+    // the histogram of every metric, by name
+    private TreeMap<String, Histogram> histograms;
+    // whether values are recorded at all
+    private boolean enabled;
+
+    /**
+     * Class constructor. Creates empty metrics
+     */
+    public Metrics() {
+        this(true);
+    }
+
+    /**
+     * Class constructor. Creates empty metrics
+     * @param enabled whether values are recorded, false for metrics which discard everything
+     */
+    public Metrics(boolean enabled) {
+        this.histograms = new TreeMap<>();
+        this.enabled = enabled;
+    }
+
+    /**
+     * Simple getter
+     * @return whether values are recorded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Method which returns the histogram of a metric, to record its values without looking it up every time
+     * @param name of the metric e.g. sat.check.ns
+     * @return the histogram, created if no value has been recorded yet. A histogram discarding its values if the
+     * metrics are disabled
+     */
+    public Histogram histogram(String name) {
+        if (!enabled) {
+            return DISCARDED;
+        }
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new Histogram();
+            histograms.put(name, histogram);
+        }
+        return histogram;
+    }
+
+    /**
+     * Method which records a value of a metric
+     * @param name of the metric e.g. sat.check.ns
+     * @param value to be recorded
+     */
+    public void record(String name, long value) {
+        if (enabled) {
+            histogram(name).add(value);
+        }
+    }
+
+    /**
+     * Method which records the time elapsed since a start time
+     * @param name of the metric, ending in .ns
+     * @param start the start time, as given by System.nanoTime
+     */
+    public void recordTime(String name, long start) {
+        if (enabled) {
+            histogram(name).add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Method which adds the metrics of another agent to these ones. Synchronised, so that the games of a tournament
+     * can merge their metrics into the same object when they end.
+     * @param other metrics to be merged
+     */
+    public synchronized void merge(Metrics other) {
+        for (Map.Entry<String, Histogram> entry : other.histograms.entrySet()) {
+            if (entry.getValue().getCount() == 0) {
+                // resolved by the other agent but never recorded
+                continue;
+            }
+            Histogram histogram = histograms.get(entry.getKey());
+            if (histogram == null) {
+                histogram = new Histogram();
+                histograms.put(entry.getKey(), histogram);
+            }
+            histogram.merge(entry.getValue());
+        }
+    }
+
+    /**
+     * Method which returns the histogram of a metric
+     * @param name of the metric
+     * @return the histogram, null if no value has been recorded
+     */
+    public Histogram get(String name) {
+        return histograms.get(name);
+    }
+
+    /**
+     * Simple getter
+     * @return the histogram of every metric, by name
+     */
+    public Map<String, Histogram> getHistograms() {
+        return histograms;
+    }
+
+    /**
+     * Method which writes metrics grouped by a key, e.g. the size of the world, to a file. The file is written as
+     * JSON if its name ends in .json, and as CSV otherwise.
+     * @param metrics the metrics by key
+     * @param file path of the file
+     */
+    public static void export(Map<String, Metrics> metrics, String file) {
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            if (file.endsWith(".json")) {
+                writeJSON(metrics, out);
+            } else {
+                writeCSV(metrics, out);
+            }
+        } catch (IOException e) {
+            System.out.println("IO Exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Method which writes metrics grouped by a key as CSV, one line per key and metric
+     * @param metrics the metrics by key
+     * @param out the writer the CSV is written to
+     */
+    public static void writeCSV(Map<String, Metrics> metrics, PrintWriter out) {
+        out.println("size,metric,count,sum,min,max,mean,p50,p90,p99");
+        for (Map.Entry<String, Metrics> group : metrics.entrySet()) {
+            for (Map.Entry<String, Histogram> entry : group.getValue().histograms.entrySet()) {
+                Histogram h = entry.getValue();
+                out.println(group.getKey() + "," + entry.getKey() + "," + h.getCount() + "," + h.getSum() + ","
+                        + h.getMin() + "," + h.getMax() + "," + String.format(Locale.ROOT, "%.1f", h.getMean()) + ","
+                        + h.percentile(0.5) + "," + h.percentile(0.9) + "," + h.percentile(0.99));
+            }
+        }
+    }
+
+    /**
+     * Method which writes metrics grouped by a key as a JSON object, holding an object per key which holds an object
+     * per metric
+     * @param metrics the metrics by key
+     * @param out the writer the JSON is written to
+     */
+    public static void writeJSON(Map<String, Metrics> metrics, PrintWriter out) {
+        out.println("{");
+        int nGroups = 0;
+        for (Map.Entry<String, Metrics> group : metrics.entrySet()) {
+            out.println("  \"" + group.getKey() + "\": {");
+            int nMetrics = 0;
+            for (Map.Entry<String, Histogram> entry : group.getValue().histograms.entrySet()) {
+                Histogram h = entry.getValue();
+                nMetrics++;
+                out.println("    \"" + entry.getKey() + "\": {\"count\": " + h.getCount() + ", \"sum\": " + h.getSum()
+                        + ", \"min\": " + h.getMin() + ", \"max\": " + h.getMax() + ", \"mean\": "
+                        + String.format(Locale.ROOT, "%.1f", h.getMean()) + ", \"p50\": " + h.percentile(0.5)
+                        + ", \"p90\": " + h.percentile(0.9) + ", \"p99\": " + h.percentile(0.99) + "}"
+                        + (nMetrics < group.getValue().histograms.size() ? "," : ""));
+            }
+            nGroups++;
+            out.println("  }" + (nGroups < metrics.size() ? "," : ""));
+        }
+        out.println("}");
+    }
+}
@@ -0,0 +1,596 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class which works out the exact probability of each unknown cell containing a tornado. The consistent tornado
+ * assignments of each component of the frontier are counted by number of tornadoes. The components are then combined
+ * with the cells outside the frontier, whose assignments are counted with binomial coefficients, so that only the
+ * assignments using exactly the number of tornadoes left on the board are weighted.
+ *
+ * The assignments of a component are not enumerated one by one but counted by dynamic programming. The cells are
+ * assigned in breadth first order, and two partial assignments which leave the same number of tornadoes in every hint
+ * still open, i.e. with cells both assigned and unassigned, have exactly the same completions. They are merged into one
+ * state, holding the number of partial assignments by number of tornadoes. The number of states only depends on how
+ * many hints are open at once, which stays small on a hexagonal board, rather than on the number of assignments. A
+ * component with too many hints open at once, or too many states, is approximated instead, which is counted by
+ * getApproximated.
+ */
+public class ProbabilityEngine {
+
+    // number of bits holding the number of tornadoes of an open hint in a state
+    private static final int SLOT_BITS = 3;
+    // largest number of hints open at once, so that a state fits in a long
+    private static final int MAX_SLOTS = 64 / SLOT_BITS;
+    // maximum number of states kept while counting a single component
+    private static final int STATE_BUDGET = 1000000;
+
+    /**
+     * Class representing a number of assignments for each number of tornadoes, over the range of numbers of tornadoes
+     * which actually occur
+     */
+    private static class Counts {
+        // the smallest number of tornadoes held
+        int low;
+        // the number of assignments for each number of tornadoes from low onwards
+        double[] values;
+
+        /**
+         * Class constructor
+         * @param low the smallest number of tornadoes held
+         * @param length the number of numbers of tornadoes held
+         */
+        Counts(int low, int length) {
+            this.low = low;
+            this.values = new double[length];
+        }
+
+        /**
+         * Method which returns the number of assignments with a number of tornadoes
+         * @param m the number of tornadoes
+         * @return the number of assignments, 0 out of range
+         */
+        double get(int m) {
+            return m >= low && m < low + values.length ? values[m - low] : 0;
+        }
+
+        /**
+         * Method which adds the assignments of other counts to these ones, each with a number of extra tornadoes
+         * @param other the counts to be added
+         * @param shift the number of tornadoes added to each assignment of other
+         */
+        void add(Counts other, int shift) {
+            int otherLow = other.low + shift;
+            int newLow = Math.min(low, otherLow);
+            int newHigh = Math.max(low + values.length, otherLow + other.values.length);
+            if (newLow != low || newHigh != low + values.length) {
+                double[] grown = new double[newHigh - newLow];
+                System.arraycopy(values, 0, grown, low - newLow, values.length);
+                low = newLow;
+                values = grown;
+            }
+            for (int k = 0; k < other.values.length; k++) {
+                values[otherLow - low + k] += other.values[k];
+            }
+        }
+    }
+
+    /**
+     * Class which counts the consistent assignments of a component of the frontier by dynamic programming, and works
+     * out the probability of each of its cells
+     */
+    private static class ComponentCounter {
+        // the component to be counted
+        private Frontier.Component component;
+        // number of variables i.e. cells of the component, numbered from 1
+        private int n;
+        // the variables in the order they are assigned
+        private int[] order;
+        // the constraints of each variable
+        private int[][] variableConstraints;
+        // the number of tornadoes of each constraint
+        private int[] constraintTornadoes;
+        // the slot of each constraint in a state, while it is open
+        private int[] slot;
+        // for the variable at each position and each of its constraints, the number of cells of the constraint
+        // assigned after it
+        private int[][] left;
+        // the states after each position, with the number of partial assignments leading to them
+        private ArrayList<HashMap<Long, Counts>> layers;
+        // the density of tornadoes given to each variable if the component is approximated
+        private double[] density;
+
+        /**
+         * Class constructor. Works out the order of the variables and the slots of the constraints
+         * @param component the component to be counted
+         */
+        ComponentCounter(Frontier.Component component) {
+            this.component = component;
+            this.n = component.variables.length;
+            int nConstraints = component.constraintLiterals.size();
+            this.constraintTornadoes = new int[nConstraints];
+            int[] degree = new int[n + 1];
+            for (int c = 0; c < nConstraints; c++) {
+                constraintTornadoes[c] = component.constraintTornadoes.get(c);
+                for (int var : component.constraintLiterals.get(c)) {
+                    degree[var]++;
+                }
+            }
+            this.variableConstraints = new int[n + 1][];
+            for (int v = 1; v <= n; v++) {
+                variableConstraints[v] = new int[degree[v]];
+                degree[v] = 0;
+            }
+            for (int c = 0; c < nConstraints; c++) {
+                for (int var : component.constraintLiterals.get(c)) {
+                    variableConstraints[var][degree[var]] = c;
+                    degree[var]++;
+                }
+            }
+            // a breadth first search from the last variable reached by another one starts at one end of the component,
+            // which keeps fewer hints open at once
+            int[] firstOrder = breadthFirst(1);
+            this.order = breadthFirst(firstOrder[n - 1]);
+            int[] remaining = new int[nConstraints];
+            for (int c = 0; c < nConstraints; c++) {
+                remaining[c] = component.constraintLiterals.get(c).length;
+            }
+            this.slot = new int[nConstraints];
+            Arrays.fill(slot, -1);
+            ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+            int nSlots = 0;
+            this.left = new int[n][];
+            for (int i = 0; i < n; i++) {
+                int[] constraints = variableConstraints[order[i]];
+                left[i] = new int[constraints.length];
+                for (int j = 0; j < constraints.length; j++) {
+                    int c = constraints[j];
+                    remaining[c]--;
+                    left[i][j] = remaining[c];
+                    if (slot[c] < 0 && remaining[c] > 0) {
+                        if (freeSlots.isEmpty()) {
+                            freeSlots.push(nSlots);
+                            nSlots++;
+                        }
+                        slot[c] = freeSlots.pop();
+                    } else if (slot[c] >= 0 && remaining[c] == 0) {
+                        freeSlots.push(slot[c]);
+                    }
+                }
+            }
+            if (nSlots > MAX_SLOTS) {
+                approximate();
+            }
+        }
+
+        /**
+         * Method which orders the variables of the component by a breadth first search over the constraints
+         * @param root the variable the search starts from
+         * @return the variables in the order they are reached
+         */
+        private int[] breadthFirst(int root) {
+            int[] reached = new int[n];
+            boolean[] seen = new boolean[n + 1];
+            boolean[] expanded = new boolean[component.constraintLiterals.size()];
+            int size = 0;
+            reached[size++] = root;
+            seen[root] = true;
+            for (int head = 0; head < size; head++) {
+                for (int c : variableConstraints[reached[head]]) {
+                    if (expanded[c]) {
+                        continue;
+                    }
+                    expanded[c] = true;
+                    for (int var : component.constraintLiterals.get(c)) {
+                        if (!seen[var]) {
+                            seen[var] = true;
+                            reached[size++] = var;
+                        }
+                    }
+                }
+            }
+            return reached;
+        }
+
+        /**
+         * Method which returns the state reached by assigning the variable at a position
+         * @param state the state before the variable is assigned
+         * @param i the position of the variable
+         * @param value 1 if the cell is a tornado, 0 otherwise
+         * @return the new state, -1 if a constraint of the variable can no longer be satisfied
+         */
+        private long next(long state, int i, int value) {
+            int[] constraints = variableConstraints[order[i]];
+            for (int j = 0; j < constraints.length; j++) {
+                int c = constraints[j];
+                int shift = slot[c] * SLOT_BITS;
+                // a constraint with a single cell never gets a slot
+                int count = (slot[c] < 0 ? 0 : (int) ((state >>> shift) & ((1 << SLOT_BITS) - 1))) + value;
+                if (count > constraintTornadoes[c] || count + left[i][j] < constraintTornadoes[c]) {
+                    return -1;
+                }
+                if (slot[c] >= 0) {
+                    // the slot of a closed constraint is cleared, so that it is free for the next one
+                    state &= ~(((1L << SLOT_BITS) - 1) << shift);
+                    if (left[i][j] > 0) {
+                        state |= (long) count << shift;
+                    }
+                }
+            }
+            return state;
+        }
+
+        /**
+         * Method which counts the consistent assignments of the component, keeping the states after every position
+         * for probabilities
+         * @return the number of assignments by number of tornadoes, scaled
+         */
+        double[] count() {
+            double[] solutions = new double[n + 1];
+            if (density != null) {
+                solutions[approximateTornadoes()] = 1;
+                return solutions;
+            }
+            layers = new ArrayList<>();
+            HashMap<Long, Counts> layer = new HashMap<>();
+            Counts empty = new Counts(0, 1);
+            empty.values[0] = 1;
+            layer.put(0L, empty);
+            layers.add(layer);
+            long nStates = 1;
+            for (int i = 0; i < n; i++) {
+                HashMap<Long, Counts> nextLayer = new HashMap<>();
+                for (Map.Entry<Long, Counts> entry : layer.entrySet()) {
+                    for (int value = 0; value <= 1; value++) {
+                        long state = next(entry.getKey(), i, value);
+                        if (state < 0) {
+                            continue;
+                        }
+                        Counts counts = nextLayer.get(state);
+                        if (counts == null) {
+                            nextLayer.put(state, counts = new Counts(entry.getValue().low + value, 0));
+                        }
+                        counts.add(entry.getValue(), value);
+                    }
+                }
+                nStates += nextLayer.size();
+                if (nStates > STATE_BUDGET) {
+                    layers = null;
+                    approximate();
+                    return count();
+                }
+                scale(nextLayer);
+                layers.add(nextLayer);
+                layer = nextLayer;
+            }
+            Counts all = layer.get(0L);
+            for (int m = 0; all != null && m <= n; m++) {
+                solutions[m] = all.get(m);
+            }
+            return solutions;
+        }
+
+        /**
+         * Method which works out the probability of each cell of the component containing a tornado. The states are
+         * gone through backwards, each holding the total weight of its completions, so that the weight of the
+         * assignments giving a cell each value is the product of the counts before it and the weights after it.
+         * @param weights the weight of the assignments of the component by number of tornadoes, i.e. the number of
+         * ways of placing the other tornadoes in the other components and outside the frontier
+         * @return the probability of each variable, indexed from 1
+         */
+        double[] probabilities(double[] weights) {
+            double[] probabilities = new double[n + 1];
+            if (density != null) {
+                System.arraycopy(density, 1, probabilities, 1, n);
+                return probabilities;
+            }
+            Counts all = layers.get(n).get(0L);
+            if (all == null) {
+                return probabilities;
+            }
+            HashMap<Long, Counts> after = new HashMap<>();
+            Counts end = new Counts(all.low, all.values.length);
+            for (int k = 0; k < end.values.length; k++) {
+                end.values[k] = weights[all.low + k];
+            }
+            after.put(0L, end);
+            for (int i = n - 1; i >= 0; i--) {
+                HashMap<Long, Counts> before = new HashMap<>();
+                // the weight of the assignments in which the variable is safe, and is a tornado
+                double[] weight = new double[2];
+                for (Map.Entry<Long, Counts> entry : layers.get(i).entrySet()) {
+                    Counts counts = entry.getValue();
+                    Counts completions = null;
+                    for (int value = 0; value <= 1; value++) {
+                        long state = next(entry.getKey(), i, value);
+                        Counts next = state < 0 ? null : after.get(state);
+                        if (next == null) {
+                            continue;
+                        }
+                        if (completions == null) {
+                            completions = new Counts(counts.low, counts.values.length);
+                        }
+                        for (int k = 0; k < counts.values.length; k++) {
+                            double completion = next.get(counts.low + k + value);
+                            completions.values[k] += completion;
+                            weight[value] += counts.values[k] * completion;
+                        }
+                    }
+                    if (completions != null) {
+                        before.put(entry.getKey(), completions);
+                    }
+                }
+                probabilities[order[i]] = weight[0] + weight[1] > 0 ? weight[1] / (weight[0] + weight[1]) : 0;
+                scale(before);
+                after = before;
+            }
+            return probabilities;
+        }
+
+        /**
+         * Method which replaces the count of a component that cannot be counted within the budget with an
+         * approximation. Each cell gets the density of tornadoes of its most constrained hint.
+         */
+        private void approximate() {
+            density = new double[n + 1];
+            for (int c = 0; c < component.constraintLiterals.size(); c++) {
+                int[] literals = component.constraintLiterals.get(c);
+                double constraintDensity = (double) component.constraintTornadoes.get(c) / literals.length;
+                for (int literal : literals) {
+                    density[literal] = Math.max(density[literal], constraintDensity);
+                }
+            }
+        }
+
+        /**
+         * Method which returns the number of tornadoes an approximated component is taken to always hold
+         * @return the expected number of tornadoes of the densities, rounded
+         */
+        private int approximateTornadoes() {
+            double expected = 0;
+            for (int v = 1; v <= n; v++) {
+                expected += density[v];
+            }
+            return (int) Math.min(n, Math.round(expected));
+        }
+
+        /**
+         * Simple getter
+         * @return true if the component is approximated rather than counted
+         */
+        boolean isApproximate() {
+            return density != null;
+        }
+    }
+
+    // the frontier whose components are to be counted
+    private Frontier frontier;
+    // number of unknown cells of the board, both in and outside the frontier
+    private int nUnknown;
+    // number of tornadoes which have not been marked yet
+    private int remainingTornadoes;
+    // probability of a cell outside the frontier containing a tornado
+    private double outsideProbability;
+    // number of components which were approximated rather than counted
+    private int approximated;
+
+    /**
+     * Class constructor
+     * @param frontier the frontier of the board
+     * @param nUnknown number of unknown cells of the board, both in and outside the frontier
+     * @param remainingTornadoes number of tornadoes which have not been marked yet
+     */
+    public ProbabilityEngine(Frontier frontier, int nUnknown, int remainingTornadoes) {
+        this.frontier = frontier;
+        this.nUnknown = nUnknown;
+        this.remainingTornadoes = remainingTornadoes;
+    }
+
+    /**
+     * Method which works out the probability of every cell of the frontier containing a tornado, as well as the
+     * probability of a cell outside the frontier, which can be read with getOutsideProbability.
+     * @param nCells number of cells of the board
+     * @return the probability of each cell of the frontier, indexed by cell variable. 0 for cells outside the frontier
+     */
+    public double[] computeProbabilities(int nCells) {
+        ArrayList<Frontier.Component> components = frontier.getComponents();
+        int nComponents = components.size();
+        // the number of solutions of each component by number of tornadoes
+        ComponentCounter[] counters = new ComponentCounter[nComponents];
+        double[][] componentSolutions = new double[nComponents][];
+        int nFrontier = 0;
+        for (int c = 0; c < nComponents; c++) {
+            counters[c] = new ComponentCounter(components.get(c));
+            componentSolutions[c] = counters[c].count();
+            if (counters[c].isApproximate()) {
+                approximated++;
+            }
+            nFrontier += components.get(c).variables.length;
+        }
+
+        int nOutside = nUnknown - nFrontier;
+        // the number of ways of placing u tornadoes outside the frontier, scaled to avoid overflow
+        double[] outside = binomials(nOutside, remainingTornadoes - nFrontier, remainingTornadoes);
+
+        // prefix[c] is the product of the components before c, suffix[c] the product of those from c onwards
+        double[][] prefix = new double[nComponents + 1][];
+        double[][] suffix = new double[nComponents + 1][];
+        prefix[0] = new double[]{1};
+        for (int c = 0; c < nComponents; c++) {
+            prefix[c + 1] = normalise(multiply(prefix[c], componentSolutions[c]));
+        }
+        suffix[nComponents] = new double[]{1};
+        for (int c = nComponents - 1; c >= 0; c--) {
+            suffix[c] = normalise(multiply(componentSolutions[c], suffix[c + 1]));
+        }
+        double[] inside = prefix[nComponents];
+
+        double[] probabilities = new double[nCells + 1];
+        if (combine(inside, outside, remainingTornadoes) <= 0) {
+            // the knowledge base has no consistent assignment, fall back to the density of tornadoes
+            double density = nUnknown == 0 ? 0 : (double) remainingTornadoes / nUnknown;
+            for (Frontier.Component component : components) {
+                for (int var : component.variables) {
+                    probabilities[var] = density;
+                }
+            }
+            outsideProbability = density;
+            return probabilities;
+        }
+        for (int c = 0; c < nComponents; c++) {
+            // the ways of placing the remaining tornadoes in the other components and outside the frontier
+            double[] others = multiply(prefix[c], suffix[c + 1]);
+            double[] weights = new double[componentSolutions[c].length];
+            for (int m = 0; m < weights.length; m++) {
+                weights[m] = combine(others, outside, remainingTornadoes - m);
+            }
+            double[] cellProbabilities = counters[c].probabilities(weights);
+            int[] variables = components.get(c).variables;
+            for (int v = 0; v < variables.length; v++) {
+                probabilities[variables[v]] = cellProbabilities[v + 1];
+            }
+        }
+        if (nOutside > 0) {
+            double expected = 0;
+            double outsideTotal = 0;
+            for (int u = 0; u < outside.length; u++) {
+                double weight = outside[u] * coefficient(inside, remainingTornadoes - u);
+                expected += u * weight;
+                outsideTotal += weight;
+            }
+            outsideProbability = outsideTotal > 0 ? expected / outsideTotal / nOutside : 0;
+        }
+        return probabilities;
+    }
+
+    /**
+     * Method which returns the number of ways of placing a number of tornadoes in the frontier, whose polynomial is
+     * passed as a parameter, and outside the frontier.
+     * @param inside the number of ways of placing tornadoes in the frontier, by number of tornadoes
+     * @param outside the number of ways of placing tornadoes outside the frontier, by number of tornadoes
+     * @param nTornadoes the number of tornadoes to be placed
+     * @return the number of ways, scaled as the polynomials passed as parameters
+     */
+    private static double combine(double[] inside, double[] outside, int nTornadoes) {
+        double total = 0;
+        for (int j = 0; j < inside.length; j++) {
+            total += inside[j] * coefficient(outside, nTornadoes - j);
+        }
+        return total;
+    }
+
+    /**
+     * Method which scales the counts of the states of a position so that the largest is 1. Every assignment of the
+     * component goes through exactly one state of each position, so the counts of a position are only ever compared
+     * with each other, and scaling them keeps large components from overflowing.
+     * @param layer the states of a position
+     */
+    private static void scale(HashMap<Long, Counts> layer) {
+        double max = 0;
+        for (Counts counts : layer.values()) {
+            for (double value : counts.values) {
+                max = Math.max(max, value);
+            }
+        }
+        if (max > 0) {
+            for (Counts counts : layer.values()) {
+                for (int k = 0; k < counts.values.length; k++) {
+                    counts.values[k] /= max;
+                }
+            }
+        }
+    }
+
+    /**
+     * Method which returns the binomial coefficients C(n, u) for every u, all scaled by the same factor so that the
+     * largest one between from and to is 1. Only the coefficients in that range are ever used, and the scaling keeps
+     * them within the range of a double for boards of any size.
+     * @param n number of cells
+     * @param from smallest number of tornadoes that can be placed in the cells
+     * @param to largest number of tornadoes that can be placed in the cells
+     * @return the scaled coefficients indexed by u, 0 outside the range
+     */
+    private static double[] binomials(int n, int from, int to) {
+        from = Math.max(from, 0);
+        to = Math.min(to, n);
+        double[] logs = new double[n + 1];
+        double max = Double.NEGATIVE_INFINITY;
+        for (int u = 1; u <= to; u++) {
+            logs[u] = logs[u - 1] + Math.log(n - u + 1) - Math.log(u);
+        }
+        for (int u = from; u <= to; u++) {
+            max = Math.max(max, logs[u]);
+        }
+        double[] coefficients = new double[n + 1];
+        for (int u = from; u <= to; u++) {
+            coefficients[u] = Math.exp(logs[u] - max);
+        }
+        return coefficients;
+    }
+
+    /**
+     * Method which multiplies two polynomials, given by their coefficients
+     * @param a the first polynomial
+     * @param b the second polynomial
+     * @return the product of the polynomials
+     */
+    private static double[] multiply(double[] a, double[] b) {
+        double[] product = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == 0) {
+                continue;
+            }
+            for (int j = 0; j < b.length; j++) {
+                product[i + j] += a[i] * b[j];
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Method which scales a polynomial so that its largest coefficient is 1. Probabilities are ratios of
+     * coefficients, so scaling never changes them but it keeps the products from overflowing.
+     * @param a the polynomial to be scaled
+     * @return the scaled polynomial
+     */
+    private static double[] normalise(double[] a) {
+        double max = 0;
+        for (double coefficient : a) {
+            max = Math.max(max, coefficient);
+        }
+        if (max > 0) {
+            for (int i = 0; i < a.length; i++) {
+                a[i] /= max;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Method which returns a coefficient of a polynomial, or 0 if the index is out of range
+     * @param a the polynomial
+     * @param i the index of the coefficient
+     * @return the coefficient
+     */
+    private static double coefficient(double[] a, int i) {
+        return i >= 0 && i < a.length ? a[i] : 0;
+    }
+
+    /**
+     * Simple getter
+     * @return the probability of a cell outside the frontier containing a tornado
+     */
+    public double getOutsideProbability() {
+        return outsideProbability;
+    }
+
+    /**
+     * Simple getter
+     * @return the number of components which were too large to be counted exactly, and were approximated
+     */
+    public int getApproximated() {
+        return approximated;
+    }
+}
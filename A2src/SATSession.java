@@ -0,0 +1,119 @@
+import org.sat4j.specs.ContradictionException;
+
+/**
+ * Class holding a single SAT solver which lives across all the moves of a game. Instead of rebuilding the knowledge
+ * base on every move, the agent tells the session about every cell it uncovers or marks, and only the clauses about
+ * that cell are added. Each hint is stated over all of its neighbours, so probed and marked cells simply become unit
+ * clauses. Every hint constraint is guarded by an activation literal which is assumed when solving; once all the
+ * neighbours of a hint are known it is retired by setting its activation literal to false. The learned clauses and
+ * the allocated structures of the solver carry over between moves.
+ */
+public class SATSession {
+
+    // the knowledge base of the game, written straight into the solver
+    private KBBuilder kb;
+    // holds the activation literal of each hint whose constraint is still active, indexed by variable
+    private int[] activationLiterals;
+    // holds whether the knowledge base has become contradictory
+    private boolean contradiction;
+    // listener told about the contradictions
+    private GameListener listener;
+
+    /**
+     * Class constructor
+     * @param boardLength length of the board
+     * @param encoding encoding of the hint constraints i.e. PB, SEQ or TEMPLATE
+     * @param listener listener told about the contradictions
+     */
+    public SATSession(int boardLength, String encoding, GameListener listener) {
+        this.kb = new KBBuilder(boardLength, encoding);
+        this.activationLiterals = new int[boardLength * boardLength + 1];
+        this.contradiction = false;
+        this.listener = listener;
+    }
+
+    /**
+     * Method which adds to the knowledge base that a cell has been uncovered safely and, if the cell has unknown
+     * neighbours, that exactly hint of its neighbours are tornadoes.
+     * @param cell the cell that has been uncovered
+     * @param neighbours the variables of all the neighbours of the cell
+     * @param hasUnknowns whether some neighbours of the cell have not been examined yet
+     */
+    public void addUncoveredCell(Cell cell, int[] neighbours, boolean hasUnknowns) {
+        try {
+            int var = kb.variable(cell.x, cell.y);
+            kb.addClause(new int[]{-var});
+            if (!hasUnknowns) {
+                return;
+            }
+            activationLiterals[var] = kb.addRetractableExactly(neighbours, Character.getNumericValue(cell.getHint()));
+        } catch (ContradictionException e) {
+            contradiction = true;
+            listener.onError(e);
+        }
+    }
+
+    /**
+     * Method which adds to the knowledge base that a cell has been marked as a tornado.
+     * @param cell the cell that has been marked
+     */
+    public void addMarkedCell(Cell cell) {
+        try {
+            kb.addClause(new int[]{kb.variable(cell.x, cell.y)});
+        } catch (ContradictionException e) {
+            contradiction = true;
+            listener.onError(e);
+        }
+    }
+
+    /**
+     * Method which adds to the knowledge base that exactly the given number of cells of the board are tornadoes. The
+     * constraint is stated once over every cell, so it never has to be updated: the unit clauses of the cells
+     * uncovered or marked later on are enough for the solver to count the tornadoes left among the covered cells.
+     * @param variables the variables of all the cells of the board
+     * @param nTornadoes the number of tornadoes of the world
+     */
+    public void addTornadoCount(int[] variables, int nTornadoes) {
+        try {
+            kb.addExactly(variables, nTornadoes);
+        } catch (ContradictionException e) {
+            contradiction = true;
+            listener.onError(e);
+        }
+    }
+
+    /**
+     * Method which retires the constraint of a hint. Called once all of the neighbours of the hint are known, at which
+     * point the constraint holds no more information than the unit clauses of its neighbours.
+     * @param cell the hint cell whose constraint is to be retired
+     */
+    public void retireHint(Cell cell) {
+        int var = kb.variable(cell.x, cell.y);
+        if (activationLiterals[var] == 0) {
+            return;
+        }
+        try {
+            kb.retire(activationLiterals[var]);
+            activationLiterals[var] = 0;
+        } catch (ContradictionException e) {
+            contradiction = true;
+            listener.onError(e);
+        }
+    }
+
+    /**
+     * Simple getter
+     * @return the knowledge base of the game
+     */
+    public KBBuilder getKB() {
+        return kb;
+    }
+
+    /**
+     * Simple getter
+     * @return whether the knowledge base has become contradictory
+     */
+    public boolean hasContradiction() {
+        return contradiction;
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Listener which ignores every event of the game. Used when only the result of a game matters, e.g. when benchmarking
+ * the agents, so that no time is spent building or writing any output.
+ */
+public class SilentListener implements GameListener {
+
+    @Override
+    public void onGameStart(Board board) {
+    }
+
+    @Override
+    public void onHintCellsProbed(Board board) {
+    }
+
+    @Override
+    public void onProbe(Cell cell) {
+    }
+
+    @Override
+    public void onMark(Cell cell) {
+    }
+
+    @Override
+    public void onCascade(Cell cell) {
+    }
+
+    @Override
+    public void onGuess(String type, double probability) {
+    }
+
+    @Override
+    public void onMoveStart() {
+    }
+
+    @Override
+    public void onMoveEnd(Board board) {
+    }
+
+    @Override
+    public void onError(Exception e) {
+    }
+
+    @Override
+    public void onGameEnd(boolean won) {
+    }
+}
@@ -0,0 +1,188 @@
+import java.util.Arrays;
+
+/**
+ * Class which makes deductions on a component of the frontier from pairs of hints. The unknown neighbours of each hint
+ * are kept as a bitmask over the cells of the component, so comparing two hints is a few word operations: B & ~A is
+ * the set of cells of B outside A, and a bit count gives its size.
+ *
+ * For two hints A and B that share a cell, with kA and kB tornadoes left among their unknown neighbours, at most kA
+ * tornadoes lie in A & B, so at least kB - kA lie in B & ~A. If that is every cell of B & ~A, those cells are all
+ * tornadoes, A & B then holds exactly kA of them, and the cells of A & ~B are all safe. The rule is checked both
+ * ways round, and covers the usual subset rule: when A is inside B and kA = kB, the cells of B & ~A are safe. Only
+ * pairs of hints sharing a cell are compared, as the others have nothing to say about each other.
+ *
+ * A hint whose count is reached, or which needs all its cells, is settled on its own as well, and the rules are
+ * applied again until nothing new is found, so the deductions of one pair feed the others.
+ */
+public class SubsetRules {
+
+    // number of variables i.e. cells of the component, numbered from 1
+    private int n;
+    // the cells of each constraint
+    private int[][] constraintVariables;
+    // the unknown cells of each constraint, one bit per variable
+    private long[][] unknown;
+    // the number of tornadoes left among the unknown cells of each constraint
+    private int[] tornadoes;
+    // the constraints of each variable
+    private int[][] variableConstraints;
+    // value of each variable: 1 tornado, -1 safe, 0 unknown
+    private int[] value;
+    // the cells of the first constraint of a pair outside the other, and of the other outside the first
+    private long[] onlyA;
+    private long[] onlyB;
+
+    /**
+     * Class constructor
+     * @param component the component of the frontier to be solved
+     */
+    public SubsetRules(Frontier.Component component) {
+        this.n = component.variables.length;
+        int nConstraints = component.constraintLiterals.size();
+        int words = (n >> 6) + 1;
+        this.constraintVariables = new int[nConstraints][];
+        this.unknown = new long[nConstraints][words];
+        this.tornadoes = new int[nConstraints];
+        int[] degree = new int[n + 1];
+        for (int c = 0; c < nConstraints; c++) {
+            constraintVariables[c] = component.constraintLiterals.get(c);
+            tornadoes[c] = component.constraintTornadoes.get(c);
+            for (int var : constraintVariables[c]) {
+                unknown[c][var >> 6] |= 1L << var;
+                degree[var]++;
+            }
+        }
+        this.variableConstraints = new int[n + 1][];
+        for (int v = 1; v <= n; v++) {
+            variableConstraints[v] = new int[degree[v]];
+            degree[v] = 0;
+        }
+        for (int c = 0; c < nConstraints; c++) {
+            for (int var : constraintVariables[c]) {
+                variableConstraints[var][degree[var]] = c;
+                degree[var]++;
+            }
+        }
+        this.value = new int[n + 1];
+        this.onlyA = new long[words];
+        this.onlyB = new long[words];
+    }
+
+    /**
+     * Method which applies the rules until they find nothing new
+     * @return for each variable, indexed from 1, 1 if it is forced to be a tornado, -1 if it is forced to be safe, 0
+     * otherwise
+     */
+    public int[] solve() {
+        // the last constraint each constraint has been compared with, plus one, so every pair is compared once a pass
+        int[] seen = new int[constraintVariables.length];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Arrays.fill(seen, 0);
+            for (int a = 0; a < constraintVariables.length; a++) {
+                if (settle(a)) {
+                    changed = true;
+                }
+                for (int var : constraintVariables[a]) {
+                    if (value[var] != 0) {
+                        continue;
+                    }
+                    for (int b : variableConstraints[var]) {
+                        if (b <= a || seen[b] == a + 1) {
+                            continue;
+                        }
+                        seen[b] = a + 1;
+                        if (applyPair(a, b) | applyPair(b, a)) {
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Method which settles a constraint on its own: if its count is reached its unknown cells are safe, and if it
+     * needs all of them they are tornadoes
+     * @param c the constraint
+     * @return true if a cell has been assigned
+     */
+    private boolean settle(int c) {
+        int nUnknown = count(unknown[c]);
+        if (nUnknown == 0 || (tornadoes[c] != 0 && tornadoes[c] != nUnknown)) {
+            return false;
+        }
+        assignAll(unknown[c].clone(), tornadoes[c] != 0);
+        return true;
+    }
+
+    /**
+     * Method which applies the pair rule to two constraints sharing a cell: if B needs a tornado in every one of its
+     * cells outside A, those are tornadoes and the cells of A outside B are safe
+     * @param a the first constraint
+     * @param b the other constraint
+     * @return true if a cell has been assigned
+     */
+    private boolean applyPair(int a, int b) {
+        int nOnlyB = 0;
+        int nOnlyA = 0;
+        for (int w = 0; w < onlyB.length; w++) {
+            onlyB[w] = unknown[b][w] & ~unknown[a][w];
+            onlyA[w] = unknown[a][w] & ~unknown[b][w];
+            nOnlyB += Long.bitCount(onlyB[w]);
+            nOnlyA += Long.bitCount(onlyA[w]);
+        }
+        if (nOnlyA + nOnlyB == 0 || tornadoes[b] - tornadoes[a] != nOnlyB) {
+            return false;
+        }
+        assignAll(onlyB, true);
+        assignAll(onlyA, false);
+        return true;
+    }
+
+    /**
+     * Method which returns the number of cells of a set
+     * @param set one bit per variable
+     * @return the number of bits set
+     */
+    private static int count(long[] set) {
+        int count = 0;
+        for (long word : set) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Method which assigns the same value to every cell of a set
+     * @param set one bit per variable, not changed by the assignments
+     * @param tornado whether the cells are tornadoes
+     */
+    private void assignAll(long[] set, boolean tornado) {
+        for (int w = 0; w < set.length; w++) {
+            for (long bits = set[w]; bits != 0; bits &= bits - 1) {
+                assign((w << 6) + Long.numberOfTrailingZeros(bits), tornado);
+            }
+        }
+    }
+
+    /**
+     * Method which assigns a value to a variable and removes it from the unknown cells of its constraints
+     * @param var the variable
+     * @param tornado whether the cell is a tornado
+     */
+    private void assign(int var, boolean tornado) {
+        if (value[var] != 0) {
+            return;
+        }
+        value[var] = tornado ? 1 : -1;
+        for (int c : variableConstraints[var]) {
+            unknown[c][var >> 6] &= ~(1L << var);
+            if (tornado) {
+                tornadoes[c]--;
+            }
+        }
+    }
+}
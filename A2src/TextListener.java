@@ -0,0 +1,96 @@
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * Listener which renders the game as readable text, in the same format the agents have always printed: a message per
+ * probe or mark and the agent's board view after every move. The text is buffered and only flushed when the game is
+ * over, rather than written to the console character by character.
+ */
+public class TextListener implements GameListener {
+
+    // buffered writer the text is rendered into
+    private PrintWriter out;
+
+    /**
+     * Class constructor
+     * @param stream the stream the text is written to e.g. System.out
+     */
+    public TextListener(OutputStream stream) {
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(stream), 1 << 16));
+    }
+
+    @Override
+    public void onGameStart(Board board) {
+        out.println("Agent board view at t0");
+        board.printBoard(out);
+        out.println("Probing hint cells");
+        out.println();
+    }
+
+    @Override
+    public void onHintCellsProbed(Board board) {
+        out.println("Agent board view at t1");
+        board.printBoard(out);
+    }
+
+    @Override
+    public void onProbe(Cell cell) {
+        if (cell.getHint() == 't') {
+            out.println("tornado " + cell.toString());
+        } else {
+            out.println("probe " + cell.toString());
+        }
+    }
+
+    @Override
+    public void onMark(Cell cell) {
+        out.println("mark " + cell.toString());
+        out.println();
+    }
+
+    @Override
+    public void onCascade(Cell cell) {
+        out.println("Uncovering free neighbour");
+    }
+
+    @Override
+    public void onGuess(String type, double probability) {
+        if (!Double.isNaN(probability)) {
+            out.println(type + " could not determine, going by probability");
+            out.println("Guessing with tornado probability " + probability);
+        } else if (type.equals("SPX")) {
+            out.println("No SPX, going random.");
+        } else {
+            // the SATX agent keeps the message it has always printed
+            out.println((type.equals("SATX") ? "SAT" : type) + " could not determine, going Random");
+        }
+    }
+
+    @Override
+    public void onMoveStart() {
+        out.println();
+    }
+
+    @Override
+    public void onMoveEnd(Board board) {
+        board.printBoard(out);
+    }
+
+    @Override
+    public void onError(Exception e) {
+        out.println(e.getClass().getSimpleName() + ": " + e.getMessage());
+    }
+
+    @Override
+    public void onGameEnd(boolean won) {
+        if (won) {
+            out.println("game won");
+        } else {
+            out.println("game lost");
+        }
+        out.println();
+        out.flush();
+    }
+}
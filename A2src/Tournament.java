@@ -0,0 +1,257 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class representing a tournament between the agent types, which play every world a number of times. Every game has
+ * its own Game and Agent instances and shares nothing with the others but the counters of the results, so the games
+ * are spread over a fork-join pool and played side by side.
+ */
+public class Tournament {
+
+    // the agent types taking part in the tournament
+    public static final String[] AGENT_TYPES = {"RPX", "SPX", "SATX", "CSPX", "HYBX"};
+    // the sizes of the worlds played
+    public static final String[] WORLD_SIZES = {"S", "M", "L"};
+    // number of worlds of each size
+    public static final int WORLDS_PER_SIZE = 10;
+
+    /**
+     * Fork-join task playing a single game of the tournament
+     */
+    private class GameTask extends RecursiveAction {
+
+        // version of the serialised form of the task
+        private static final long serialVersionUID = 1L;
+        // index of the agent type in AGENT_TYPES
+        private int agent;
+        // name of the world e.g. S1, M3, L5
+        private String world;
+        // size of the world i.e. S, M or L
+        private String size;
+        // index of the game in the tournament
+        private int index;
+        // seed of the random moves of the agent
+        private long seed;
+
+        /**
+         * Class constructor
+         * @param agent index of the agent type in AGENT_TYPES
+         * @param size size of the world i.e. S, M or L
+         * @param world name of the world
+         * @param index index of the game in the tournament
+         * @param seed seed of the random moves of the agent
+         */
+        GameTask(int agent, String size, String world, int index, long seed) {
+            this.agent = agent;
+            this.size = size;
+            this.world = world;
+            this.index = index;
+            this.seed = seed;
+        }
+
+        /**
+         * Method which plays the game, writing its output into a buffer of its own which is printed in one piece, so
+         * that the output of games played at the same time is not mixed up.
+         */
+        @Override
+        protected void compute() {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            long start = System.nanoTime();
+            Game game = new Game(world);
+            GameListener listener = options.createListener(output);
+            if (options.getRecord() != null) {
+                String file = String.format("%05d-%s-%s.log", index, AGENT_TYPES[agent], world);
+                try {
+                    listener = new GameRecorder(new FileOutputStream(new File(options.getRecord(), file)), world,
+                            AGENT_TYPES[agent], seed, listener);
+                } catch (FileNotFoundException e) {
+                    System.out.println("Exception: " + e.getMessage());
+                }
+            }
+            Agent player = new Agent(AGENT_TYPES[agent], game, options.withSeed(seed), listener);
+            String result = player.playGame();
+            time[agent].add(System.nanoTime() - start);
+            played[agent].increment();
+            if (result.equals("game won")) {
+                won[agent].increment();
+            }
+            metrics.get(size).merge(player.getMetrics());
+            synchronized (System.out) {
+                System.out.println("World: " + world + " Agent: " + AGENT_TYPES[agent]);
+                System.out.print(output.toString());
+            }
+        }
+    }
+
+    // number of times every world is played by every agent
+    private int nIterations;
+    // options tuning how the agents play
+    private AgentOptions options;
+    // seed the seeds of the games are drawn from
+    private long seed;
+    // number of games won, played and the time spent playing them in nanoseconds, by agent type
+    private LongAdder[] won;
+    private LongAdder[] played;
+    private LongAdder[] time;
+    // metrics recorded by the agents, by size of the world
+    private TreeMap<String, Metrics> metrics;
+
+    /**
+     * Class constructor
+     * @param nIterations number of times every world is played by every agent
+     * @param options options tuning how the agents play
+     */
+    public Tournament(int nIterations, AgentOptions options) {
+        this.nIterations = nIterations;
+        this.options = options;
+        this.seed = options.isSeeded() ? options.getSeed() : new Random().nextLong();
+        this.won = new LongAdder[AGENT_TYPES.length];
+        this.played = new LongAdder[AGENT_TYPES.length];
+        this.time = new LongAdder[AGENT_TYPES.length];
+        this.metrics = new TreeMap<>();
+        for (String size : WORLD_SIZES) {
+            metrics.put(size, new Metrics());
+        }
+        for (int i = 0; i < AGENT_TYPES.length; i++) {
+            won[i] = new LongAdder();
+            played[i] = new LongAdder();
+            time[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Method which plays all the games of the tournament on a pool of the given size, and waits for them to finish.
+     * The seed of every game is drawn before any game starts, so it only depends on the seed of the tournament and on
+     * the position of the game in the tournament, not on the order in which the games are played.
+     * @param parallelism number of games played at the same time, 1 to play them one after another
+     */
+    public void run(int parallelism) {
+        if (options.getRecord() != null) {
+            new File(options.getRecord()).mkdirs();
+        }
+        SplittableRandom seeds = new SplittableRandom(seed);
+        ArrayList<GameTask> tasks = new ArrayList<>();
+        for (int j = 0; j < nIterations; j++) {
+            for (int i = 1; i <= WORLDS_PER_SIZE; i++) {
+                for (int agent = 0; agent < AGENT_TYPES.length; agent++) {
+                    for (String size : WORLD_SIZES) {
+                        tasks.add(new GameTask(agent, size, size + i, tasks.size(), seeds.nextLong()));
+                    }
+                }
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> RecursiveAction.invokeAll(tasks)).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Method which returns the index of an agent type in AGENT_TYPES
+     * @param agentType e.g. RPX, SPX or SATX
+     * @return the index of the agent type
+     */
+    private static int indexOf(String agentType) {
+        for (int i = 0; i < AGENT_TYPES.length; i++) {
+            if (AGENT_TYPES[i].equals(agentType)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown agent type: " + agentType);
+    }
+
+    /**
+     * Method which returns the number of games won by an agent type
+     * @param agentType e.g. RPX, SPX or SATX
+     * @return the number of games won
+     */
+    public int getWon(String agentType) {
+        return won[indexOf(agentType)].intValue();
+    }
+
+    /**
+     * Method which returns the number of games played by an agent type
+     * @param agentType e.g. RPX, SPX or SATX
+     * @return the number of games played
+     */
+    public int getPlayed(String agentType) {
+        return played[indexOf(agentType)].intValue();
+    }
+
+    /**
+     * Method which returns the time spent by an agent type playing its games, summed over all the games
+     * @param agentType e.g. RPX, SPX or SATX
+     * @return the time in nanoseconds
+     */
+    public long getTime(String agentType) {
+        return time[indexOf(agentType)].sum();
+    }
+
+    /**
+     * Simple getter
+     * @return the metrics recorded by the agents, by size of the world
+     */
+    public TreeMap<String, Metrics> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Method which prints the results of the tournament
+     */
+    public void printSummary() {
+        int nGames = WORLD_SIZES.length * WORLDS_PER_SIZE * nIterations;
+        System.out.println();
+        System.out.println("------------------------------------------");
+        System.out.println("\tResults for " + nIterations + " attempt(s) at each level:");
+        for (String agentType : AGENT_TYPES) {
+            System.out.println("\t" + agentType + " won: " + getWon(agentType) + "/" + nGames + " - "
+                    + Math.round(((Integer.valueOf(getWon(agentType)).floatValue() / nGames) * 100)) + "% win rate");
+        }
+        System.out.println("------------------------------------------ ");
+        for (String agentType : AGENT_TYPES) {
+            long average = getPlayed(agentType) == 0 ? 0 : getTime(agentType) / getPlayed(agentType);
+            System.out.println("\t" + agentType + " average game time: " + (average / 1000) + " us");
+        }
+        if (options.isMetrics()) {
+            printTiers();
+        }
+        System.out.println("\tSeed: " + seed);
+    }
+
+    /**
+     * Method which prints, for every tier of the hybrid strategy, how many moves reached it, how often it made
+     * progress and how long it took on average, over all the sizes of world
+     */
+    private void printTiers() {
+        System.out.println("------------------------------------------ ");
+        System.out.println("\tHYBX tiers: moves reaching the tier, hit rate, average time");
+        for (String tier : Agent.HYBRID_TIERS) {
+            long nReached = 0;
+            long nHits = 0;
+            long time = 0;
+            for (Metrics sizeMetrics : metrics.values()) {
+                Metrics.Histogram hits = sizeMetrics.get("tier." + tier + ".hits");
+                Metrics.Histogram times = sizeMetrics.get("tier." + tier + ".ns");
+                if (hits != null) {
+                    nReached += hits.getCount();
+                    nHits += hits.getSum();
+                    time += times.getSum();
+                }
+            }
+            System.out.println("\t" + tier + ": " + nReached + ", "
+                    + (nReached == 0 ? 0 : Math.round(100.0 * nHits / nReached)) + "%, "
+                    + (nReached == 0 ? 0 : time / nReached / 1000) + " us");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * Listener which writes the game as a compact trace meant to be read by other programs, one line per event:
+ * <pre>
+ * S n          game started on a board of length n
+ * P x y h      cell (x, y) probed, uncovering hint h (t for a tornado)
+ * M x y        cell (x, y) marked as a danger
+ * C x y        cell (x, y) about to be probed by the cascade
+ * G type p     agent of that type guessing, with probability p of a tornado (NaN for a random cell)
+ * X name m     the agent or one of its solvers failed with an exception of that name and message m
+ * E W|L        game won or lost
+ * </pre>
+ * Board views are not written, as they can be rebuilt from the probes and marks. The trace is buffered and flushed
+ * when the game is over.
+ */
+public class TraceListener implements GameListener {
+
+    // buffered writer the trace is written into
+    private PrintWriter out;
+
+    /**
+     * Class constructor
+     * @param stream the stream the trace is written to e.g. System.out
+     */
+    public TraceListener(OutputStream stream) {
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(stream), 1 << 16));
+    }
+
+    /**
+     * Method which writes an event about a cell
+     * @param event letter of the event
+     * @param cell the cell of the event
+     */
+    private void writeCell(char event, Cell cell) {
+        out.print(event);
+        out.print(' ');
+        out.print(cell.x);
+        out.print(' ');
+        out.print(cell.y);
+    }
+
+    @Override
+    public void onGameStart(Board board) {
+        out.print("S ");
+        out.println(board.board.length);
+    }
+
+    @Override
+    public void onHintCellsProbed(Board board) {
+    }
+
+    @Override
+    public void onProbe(Cell cell) {
+        writeCell('P', cell);
+        out.print(' ');
+        out.println(cell.getHint());
+    }
+
+    @Override
+    public void onMark(Cell cell) {
+        writeCell('M', cell);
+        out.println();
+    }
+
+    @Override
+    public void onCascade(Cell cell) {
+        writeCell('C', cell);
+        out.println();
+    }
+
+    @Override
+    public void onGuess(String type, double probability) {
+        out.print("G ");
+        out.print(type);
+        out.print(' ');
+        out.println(probability);
+    }
+
+    @Override
+    public void onMoveStart() {
+    }
+
+    @Override
+    public void onMoveEnd(Board board) {
+    }
+
+    @Override
+    public void onError(Exception e) {
+        out.print("X ");
+        out.print(e.getClass().getSimpleName());
+        out.print(' ');
+        out.println(e.getMessage());
+    }
+
+    @Override
+    public void onGameEnd(boolean won) {
+        out.println(won ? "E W" : "E L");
+        out.flush();
+    }
+}
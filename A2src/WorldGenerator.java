@@ -0,0 +1,105 @@
+import java.util.Random;
+
+/**
+ * Class which generates hexagonal worlds of any size, with a given density of tornadoes. The tornadoes are placed at
+ * random, apart from the two hint cells at (0, 0) and (N/2, N/2) which are always safe, and every other cell holds the
+ * number of tornadoes among its six neighbours, as given by HexAdjacency. The same seed always gives the same world.
+ *
+ * Generated worlds are named G[size]-[density]-[seed] e.g. G100-0.2-42, where the density and the seed are optional
+ * and default to 0.2, roughly the density of the built-in worlds, and 0.
+ */
+public class WorldGenerator {
+
+    // density of tornadoes used when the name of a generated world does not give one
+    public static final double DEFAULT_DENSITY = 0.2;
+
+    /**
+     * Method which generates a world
+     * @param boardLength length of the board
+     * @param density fraction of the cells, hint cells excluded, holding a tornado
+     * @param seed seed of the placement of the tornadoes
+     * @return the map of the world, indexed by [y][x]
+     */
+    public static char[][] generate(int boardLength, double density, long seed) {
+        if (boardLength < 2) {
+            throw new IllegalArgumentException("Invalid board length: " + boardLength);
+        }
+        if (density < 0 || density > 1) {
+            throw new IllegalArgumentException("Invalid tornado density: " + density);
+        }
+        int nCells = boardLength * boardLength;
+        int firstHint = 0;
+        int secondHint = (boardLength / 2) * boardLength + boardLength / 2;
+        // the cells which may hold a tornado i.e. all but the hint cells
+        int[] candidates = new int[nCells - 2];
+        int nCandidates = 0;
+        for (int i = 0; i < nCells; i++) {
+            if (i != firstHint && i != secondHint) {
+                candidates[nCandidates] = i;
+                nCandidates++;
+            }
+        }
+        int nTornadoes = (int) Math.round(density * nCandidates);
+        // partial Fisher-Yates shuffle: the first nTornadoes candidates end up as a uniform random sample
+        Random random = new Random(seed);
+        boolean[] tornado = new boolean[nCells];
+        for (int i = 0; i < nTornadoes; i++) {
+            int j = i + random.nextInt(nCandidates - i);
+            int swap = candidates[i];
+            candidates[i] = candidates[j];
+            candidates[j] = swap;
+            tornado[candidates[i]] = true;
+        }
+        HexAdjacency adjacency = HexAdjacency.forBoard(boardLength);
+        char[][] map = new char[boardLength][boardLength];
+        for (int y = 0; y < boardLength; y++) {
+            for (int x = 0; x < boardLength; x++) {
+                int index = y * boardLength + x;
+                if (tornado[index]) {
+                    map[y][x] = 't';
+                    continue;
+                }
+                int nAdjacentTornadoes = 0;
+                for (int k = adjacency.start(index); k < adjacency.end(index); k++) {
+                    if (tornado[adjacency.neighbour(k)]) {
+                        nAdjacentTornadoes++;
+                    }
+                }
+                map[y][x] = (char) ('0' + nAdjacentTornadoes);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Method which returns whether a world name is the name of a generated world
+     * @param worldName e.g. S2, M7, G100-0.2-42
+     * @return true if the world is generated
+     */
+    public static boolean isGenerated(String worldName) {
+        return worldName.length() > 1 && worldName.charAt(0) == 'G' && Character.isDigit(worldName.charAt(1));
+    }
+
+    /**
+     * Method which returns the map of a world, either built-in or generated
+     * @param worldName e.g. S2, M7, G100-0.2-42
+     * @return the map of the world, indexed by [y][x]
+     */
+    public static char[][] mapOf(String worldName) {
+        if (!isGenerated(worldName)) {
+            return World.valueOf(worldName).map;
+        }
+        String[] parts = worldName.substring(1).split("-");
+        if (parts.length > 3) {
+            throw new IllegalArgumentException("Invalid generated world: " + worldName);
+        }
+        try {
+            int boardLength = Integer.parseInt(parts[0]);
+            double density = parts.length > 1 ? Double.parseDouble(parts[1]) : DEFAULT_DENSITY;
+            long seed = parts.length > 2 ? Long.parseLong(parts[2]) : 0;
+            return generate(boardLength, density, seed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid generated world: " + worldName);
+        }
+    }
+}
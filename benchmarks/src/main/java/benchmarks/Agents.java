@@ -0,0 +1,200 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import org.logicng.formulas.Formula;
+
+/**
+ * Class giving the benchmarks access to the classes of the agent. The agent lives in the default package, which
+ * cannot be imported from a named package, and JMH only runs benchmarks declared in a named package, so the classes
+ * are looked up by name once and their methods are called through method handles.
+ */
+final class Agents {
+
+    // seed of the random moves of every agent benchmarked, so that every run plays the same moves
+    static final long SEED = 5011;
+
+    private static final MethodHandle WORLD_MAP;
+    private static final MethodHandle NEW_GAME;
+    private static final MethodHandle NEW_OPTIONS;
+    private static final MethodHandle SET_ENCODING;
+    private static final MethodHandle SET_OUTPUT;
+    private static final MethodHandle SET_SEED;
+    private static final MethodHandle NEW_AGENT;
+    private static final MethodHandle CLEAR_NEIGHBOURS;
+    private static final MethodHandle PROPAGATE_SPX;
+    private static final MethodHandle GET_UNCOVERED_CELLS;
+    private static final MethodHandle NEIGHBOURING_UNKNOWNS;
+    private static final MethodHandle CONVERT_KB;
+    private static final MethodHandle CREATE_CLAUSE;
+    private static final MethodHandle MAKE_SAT_MOVE;
+    private static final MethodHandle MAKE_SPX_MOVE;
+    private static final MethodHandle PLAY_GAME;
+    private static final MethodHandle NEW_DIMACS_GENERATOR;
+    private static final MethodHandle CONVERT_TO_DIMACS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> world = Class.forName("World");
+            Class<?> game = Class.forName("Game");
+            Class<?> options = Class.forName("AgentOptions");
+            Class<?> agent = Class.forName("Agent");
+            Class<?> cell = Class.forName("Cell");
+            Class<?> generator = Class.forName("DIMACSGenerator");
+            WORLD_MAP = MethodHandles.filterReturnValue(
+                    lookup.findStatic(world, "valueOf", MethodType.methodType(world, String.class)),
+                    lookup.findGetter(world, "map", char[][].class));
+            NEW_GAME = lookup.findConstructor(game, MethodType.methodType(void.class, String.class));
+            NEW_OPTIONS = lookup.findConstructor(options, MethodType.methodType(void.class));
+            SET_ENCODING = lookup.findVirtual(options, "setEncoding", MethodType.methodType(void.class, String.class));
+            SET_OUTPUT = lookup.findVirtual(options, "setOutput", MethodType.methodType(void.class, String.class));
+            SET_SEED = lookup.findVirtual(options, "setSeed", MethodType.methodType(void.class, long.class));
+            NEW_AGENT = lookup.findConstructor(agent,
+                    MethodType.methodType(void.class, String.class, game, options));
+            CLEAR_NEIGHBOURS = lookup.findVirtual(agent, "clearNeighbours", MethodType.methodType(void.class));
+            PROPAGATE_SPX = lookup.findVirtual(agent, "propagateSPX", MethodType.methodType(int.class));
+            GET_UNCOVERED_CELLS = lookup.findVirtual(agent, "getUncoveredCells",
+                    MethodType.methodType(ArrayList.class));
+            NEIGHBOURING_UNKNOWNS = lookup.findVirtual(agent, "neighbouringUnknowns",
+                    MethodType.methodType(int.class, cell));
+            CONVERT_KB = lookup.findVirtual(agent, "convertKB", MethodType.methodType(String.class, ArrayList.class));
+            CREATE_CLAUSE = lookup.findVirtual(agent, "createClause", MethodType.methodType(String.class, cell));
+            MAKE_SAT_MOVE = lookup.findVirtual(agent, "makeSATMove", MethodType.methodType(boolean.class));
+            MAKE_SPX_MOVE = lookup.findVirtual(agent, "makeSPXMove", MethodType.methodType(void.class));
+            PLAY_GAME = lookup.findVirtual(agent, "playGame", MethodType.methodType(String.class));
+            NEW_DIMACS_GENERATOR = lookup.findConstructor(generator, MethodType.methodType(void.class, int.class));
+            CONVERT_TO_DIMACS = lookup.findVirtual(generator, "convertToDIMACS",
+                    MethodType.methodType(int[][].class, Formula.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Agents() {
+    }
+
+    /**
+     * Method which returns the length of the board of a world
+     * @param world name of the world e.g. S4, M7, L2
+     * @return the length of the board
+     */
+    static int boardLength(String world) throws Throwable {
+        return ((char[][]) WORLD_MAP.invoke(world)).length;
+    }
+
+    /**
+     * Method which creates a silent, seeded agent playing a new game
+     * @param type agent type i.e. RPX, SPX or SATX
+     * @param world name of the world e.g. S4, M7, L2
+     * @param encoding encoding of the SATX knowledge base i.e. DNF, PB or SEQ
+     * @return the agent, which has probed the hint cells
+     */
+    static Object newAgent(String type, String world, String encoding) throws Throwable {
+        Object options = NEW_OPTIONS.invoke();
+        SET_ENCODING.invoke(options, encoding);
+        SET_OUTPUT.invoke(options, "NONE");
+        SET_SEED.invoke(options, SEED);
+        return NEW_AGENT.invoke(type, NEW_GAME.invoke(world), options);
+    }
+
+    /**
+     * Method which creates an agent in the middle of a game: the cascade of the hint cells is over and, if asked for,
+     * every single point deduction has been made, so only a SAT move or a guess can make progress.
+     * @param type agent type i.e. RPX, SPX or SATX
+     * @param world name of the world e.g. S4, M7, L2
+     * @param encoding encoding of the SATX knowledge base i.e. DNF, PB or SEQ
+     * @param propagate whether the single point deductions are made
+     * @return the agent
+     */
+    static Object midGameAgent(String type, String world, String encoding, boolean propagate) throws Throwable {
+        Object agent = newAgent(type, world, encoding);
+        CLEAR_NEIGHBOURS.invoke(agent);
+        if (propagate) {
+            int nActions = (int) PROPAGATE_SPX.invoke(agent);
+            while (nActions > 0) {
+                CLEAR_NEIGHBOURS.invoke(agent);
+                nActions = (int) PROPAGATE_SPX.invoke(agent);
+            }
+        }
+        return agent;
+    }
+
+    /**
+     * Simple getter
+     * @param agent the agent
+     * @return the cells uncovered by the agent
+     */
+    static ArrayList<?> uncoveredCells(Object agent) throws Throwable {
+        return (ArrayList<?>) GET_UNCOVERED_CELLS.invoke(agent);
+    }
+
+    /**
+     * Method which returns the uncovered cell with the most unknown neighbours, i.e. the largest hint clause
+     * @param agent the agent
+     * @return the cell, null if no uncovered cell has an unknown neighbour
+     */
+    static Object frontierCell(Object agent) throws Throwable {
+        Object best = null;
+        int bestUnknowns = 0;
+        for (Object cell : uncoveredCells(agent)) {
+            int nUnknowns = (int) NEIGHBOURING_UNKNOWNS.invoke(agent, cell);
+            if (nUnknowns > bestUnknowns) {
+                best = cell;
+                bestUnknowns = nUnknowns;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Method which calls Agent.convertKB
+     */
+    static String convertKB(Object agent, ArrayList<?> cells) throws Throwable {
+        return (String) CONVERT_KB.invoke(agent, cells);
+    }
+
+    /**
+     * Method which calls Agent.createClause
+     */
+    static String createClause(Object agent, Object cell) throws Throwable {
+        return (String) CREATE_CLAUSE.invoke(agent, cell);
+    }
+
+    /**
+     * Method which calls Agent.makeSATMove
+     */
+    static boolean makeSATMove(Object agent) throws Throwable {
+        return (boolean) MAKE_SAT_MOVE.invoke(agent);
+    }
+
+    /**
+     * Method which calls Agent.makeSPXMove
+     */
+    static void makeSPXMove(Object agent) throws Throwable {
+        MAKE_SPX_MOVE.invoke(agent);
+    }
+
+    /**
+     * Method which calls Agent.playGame
+     */
+    static String playGame(Object agent) throws Throwable {
+        return (String) PLAY_GAME.invoke(agent);
+    }
+
+    /**
+     * Method which creates a DIMACSGenerator for a board of the given length
+     */
+    static Object newDIMACSGenerator(int boardLength) throws Throwable {
+        return NEW_DIMACS_GENERATOR.invoke(boardLength);
+    }
+
+    /**
+     * Method which calls DIMACSGenerator.convertToDIMACS
+     */
+    static int[][] convertToDIMACS(Object generator, Formula formula) throws Throwable {
+        return (int[][]) CONVERT_TO_DIMACS.invoke(generator, formula);
+    }
+}
@@ -0,0 +1,40 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of complete games, from the creation of the game and the agent to the end of the game. The agents are
+ * silent and seeded, so every invocation plays exactly the same moves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param({"RPX", "SPX", "SATX"})
+    public String agentType;
+
+    @Param({"S4", "M7", "L2"})
+    public String world;
+
+    @Param({"PB"})
+    public String encoding;
+
+    @Benchmark
+    public String playGame() throws Throwable {
+        return Agents.playGame(Agents.newAgent(agentType, world, encoding));
+    }
+}
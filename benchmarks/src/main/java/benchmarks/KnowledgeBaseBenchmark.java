@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.logicng.formulas.Formula;
+import org.logicng.formulas.FormulaFactory;
+import org.logicng.io.parsers.PropositionalParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the steps building the DNF knowledge base of the SATX agent: the clause of a single hint, the string
+ * of the whole knowledge base, and its conversion from a parsed formula to DIMACS clauses. The agent is taken to the
+ * point where the single point strategy is stuck, so the knowledge base is the one a SAT move would build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnowledgeBaseBenchmark {
+
+    @Param({"S4", "M7", "L2"})
+    public String world;
+
+    // agent whose knowledge base is built
+    private Object agent;
+    // the cells uncovered by the agent
+    private ArrayList<?> uncoveredCells;
+    // the uncovered cell with the most unknown neighbours
+    private Object frontierCell;
+    // the knowledge base parsed into a formula
+    private Formula formula;
+
+    /**
+     * Method which takes the agent to the middle of the game and parses its knowledge base once
+     */
+    @Setup
+    public void setup() throws Throwable {
+        agent = Agents.midGameAgent("SATX", world, "DNF", true);
+        uncoveredCells = Agents.uncoveredCells(agent);
+        frontierCell = Agents.frontierCell(agent);
+        if (frontierCell == null) {
+            throw new IllegalStateException("World " + world + " has no frontier once the single point strategy is stuck");
+        }
+        formula = new PropositionalParser(new FormulaFactory()).parse(Agents.convertKB(agent, uncoveredCells));
+    }
+
+    @Benchmark
+    public String createClause() throws Throwable {
+        return Agents.createClause(agent, frontierCell);
+    }
+
+    @Benchmark
+    public String convertKB() throws Throwable {
+        return Agents.convertKB(agent, uncoveredCells);
+    }
+
+    @Benchmark
+    public int[][] convertToDIMACS() throws Throwable {
+        return Agents.convertToDIMACS(Agents.newDIMACSGenerator(Agents.boardLength(world)), formula);
+    }
+}
@@ -0,0 +1,83 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of a single move of the SPX and SATX agents. A move changes the agent, so a fresh agent is taken to the
+ * same point of the game before every invocation, outside of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+
+    /**
+     * State holding a SATX agent stuck on the single point strategy, so that its next move needs the solver
+     */
+    @State(Scope.Thread)
+    public static class SATState {
+
+        @Param({"S4", "M7", "L2"})
+        public String world;
+
+        @Param({"PB", "DNF"})
+        public String encoding;
+
+        // agent making the move
+        Object agent;
+
+        /**
+         * Method which creates the agent before every invocation
+         */
+        @Setup(Level.Invocation)
+        public void setup() throws Throwable {
+            agent = Agents.midGameAgent("SATX", world, encoding, true);
+        }
+    }
+
+    /**
+     * State holding a SPX agent which has just probed the hint cells and their cascade
+     */
+    @State(Scope.Thread)
+    public static class SPXState {
+
+        @Param({"S4", "M7", "L2"})
+        public String world;
+
+        // agent making the move
+        Object agent;
+
+        /**
+         * Method which creates the agent before every invocation
+         */
+        @Setup(Level.Invocation)
+        public void setup() throws Throwable {
+            agent = Agents.midGameAgent("SPX", world, "PB", false);
+        }
+    }
+
+    @Benchmark
+    public boolean makeSATMove(SATState state) throws Throwable {
+        return Agents.makeSATMove(state.agent);
+    }
+
+    @Benchmark
+    public Object makeSPXMove(SPXState state) throws Throwable {
+        Agents.makeSPXMove(state.agent);
+        return state.agent;
+    }
+}